@@ -0,0 +1,48 @@
+package com.movie.admission;
+
+import com.movie.dto.QueueStatus;
+
+/**
+ * Outcome of asking the waiting room for entry. An admitted request holds a slot until closed.
+ */
+public final class Admission implements AutoCloseable {
+
+    private final boolean admitted;
+    private final QueueStatus queueStatus;
+    private Runnable onClose;
+
+    private Admission(boolean admitted, QueueStatus queueStatus, Runnable onClose) {
+        this.admitted = admitted;
+        this.queueStatus = queueStatus;
+        this.onClose = onClose;
+    }
+
+    static Admission admitted(Runnable onClose) {
+        return new Admission(true, null, onClose);
+    }
+
+    static Admission queued(QueueStatus queueStatus) {
+        return new Admission(false, queueStatus, null);
+    }
+
+    static Admission rejected() {
+        return new Admission(false, null, null);
+    }
+
+    public boolean isAdmitted() {
+        return admitted;
+    }
+
+    // Set when the request was queued; null when it was admitted or the queue is full
+    public QueueStatus getQueueStatus() {
+        return queueStatus;
+    }
+
+    @Override
+    public void close() {
+        if (onClose != null) {
+            onClose.run();
+            onClose = null;
+        }
+    }
+}
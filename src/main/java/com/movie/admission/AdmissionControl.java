@@ -0,0 +1,247 @@
+package com.movie.admission;
+
+import com.movie.dto.QueueStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room for booking requests. Each showtime admits a limited number of requests at
+ * a time; everyone else gets a ticket in a bounded FIFO queue and polls with it until admitted.
+ * Admission only touches lock-free queues and counters, never the database, so callers check that the
+ * showtime exists first. A ticket only works for the user it was issued to, and a showtime's lane is dropped once
+ * nobody is in it or waiting for it; a background sweep expires tickets nobody came back for.
+ */
+@Component
+public class AdmissionControl {
+
+    @Value("${booking.admission.max-concurrent}")
+    private int maxConcurrent;
+
+    @Value("${booking.admission.queue-capacity}")
+    private int queueCapacity;
+
+    // How long an admitted ticket keeps its slot, and how long a waiting ticket may go without polling
+    @Value("${booking.admission.window}")
+    private long window;
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admission-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    // The showtime must be known to exist; a lane is only kept while someone is in it or waiting for it
+    public Admission enter(Long showtimeId, String token, String username) {
+        Lane lane = lanes.compute(showtimeId, (id, current) -> {
+            Lane entered = current == null ? new Lane(id) : current;
+            entered.entering.incrementAndGet();
+            return entered;
+        });
+        try {
+            return enter(lane, token, username);
+        } finally {
+            lane.entering.decrementAndGet();
+            dropIfIdle(lane);
+        }
+    }
+
+    public Optional<QueueStatus> getStatus(String token, String username) {
+        Ticket ticket = tickets.get(token);
+        if (ticket == null || !ticket.username.equals(username)) {
+            return Optional.empty();
+        }
+        Lane lane = ticket.lane;
+        long now = System.currentTimeMillis();
+        ticket.lastSeen = now;
+        lane.reclaimExpired(now);
+        lane.drain(now);
+        return Optional.of(lane.status(ticket));
+    }
+
+    private Admission enter(Lane lane, String token, String username) {
+        long now = System.currentTimeMillis();
+        lane.reclaimExpired(now);
+
+        // Someone else's token is ignored, and its holder joins the queue like a newcomer
+        Ticket ticket = token == null ? null : tickets.get(token);
+        if (ticket != null && ticket.lane == lane && ticket.username.equals(username)) {
+            ticket.lastSeen = now;
+            lane.drain(now);
+            return claim(lane, ticket, username);
+        }
+
+        // Newcomers only skip the queue when nobody is waiting
+        if (lane.waiting.isEmpty() && lane.tryAcquire()) {
+            return Admission.admitted(lane::release);
+        }
+        if (lane.queued.incrementAndGet() > queueCapacity) {
+            lane.queued.decrementAndGet();
+            return Admission.rejected();
+        }
+        ticket = new Ticket(UUID.randomUUID().toString(), lane, username, lane.issued.getAndIncrement(), now);
+        tickets.put(ticket.token, ticket);
+        lane.waiting.add(ticket);
+        lane.drain(now);
+        return claim(lane, ticket, username);
+    }
+
+    private Admission claim(Lane lane, Ticket ticket, String username) {
+        if (ticket.username.equals(username) && ticket.state.compareAndSet(Ticket.GRANTED, Ticket.CLAIMED)) {
+            tickets.remove(ticket.token);
+            lane.granted.remove(ticket);
+            return Admission.admitted(lane::release);
+        }
+        return Admission.queued(lane.status(ticket));
+    }
+
+    // Expires tickets whose holders went away and drops the lanes that are left with nothing to do
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (Lane lane : lanes.values()) {
+            lane.reclaimExpired(now);
+            dropIfIdle(lane);
+        }
+    }
+
+    // Removed under the map's lock, so it cannot race a request entering the lane
+    private void dropIfIdle(Lane lane) {
+        lanes.computeIfPresent(lane.showtimeId, (id, current) -> current == lane && lane.isIdle() ? null : current);
+    }
+
+    private final class Lane {
+
+        private final Long showtimeId;
+
+        private final ConcurrentLinkedQueue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+        // Admitted tickets whose holder has not come back yet, oldest first
+        private final ConcurrentLinkedQueue<Ticket> granted = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong issued = new AtomicLong();
+        private final AtomicLong admittedUpTo = new AtomicLong();
+        // Requests between looking the lane up and being admitted or queued
+        private final AtomicInteger entering = new AtomicInteger();
+
+        private Lane(Long showtimeId) {
+            this.showtimeId = showtimeId;
+        }
+
+        private boolean isIdle() {
+            return entering.get() == 0 && active.get() == 0 && waiting.isEmpty() && granted.isEmpty();
+        }
+
+        private boolean tryAcquire() {
+            int current;
+            do {
+                current = active.get();
+                if (current >= maxConcurrent) {
+                    return false;
+                }
+            } while (!active.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            active.decrementAndGet();
+            drain(System.currentTimeMillis());
+            dropIfIdle(this);
+        }
+
+        // Hands free slots to the head of the queue, skipping tickets whose holder stopped polling
+        private void drain(long now) {
+            while (!waiting.isEmpty() && tryAcquire()) {
+                Ticket next = waiting.poll();
+                if (next == null) {
+                    active.decrementAndGet();
+                    return;
+                }
+                queued.decrementAndGet();
+                admittedUpTo.accumulateAndGet(next.sequence + 1, Math::max);
+                if (now - next.lastSeen > window) {
+                    next.state.set(Ticket.EXPIRED);
+                    tickets.remove(next.token);
+                    active.decrementAndGet();
+                    continue;
+                }
+                next.grantedAt = now;
+                next.state.set(Ticket.GRANTED);
+                granted.add(next);
+            }
+        }
+
+        private void reclaimExpired(long now) {
+            Ticket head;
+            while ((head = granted.peek()) != null) {
+                if (head.state.get() == Ticket.GRANTED) {
+                    if (now - head.grantedAt <= window || !head.state.compareAndSet(Ticket.GRANTED, Ticket.EXPIRED)) {
+                        return;
+                    }
+                    tickets.remove(head.token);
+                    active.decrementAndGet();
+                }
+                granted.remove(head);
+            }
+            drain(now);
+        }
+
+        private QueueStatus status(Ticket ticket) {
+            boolean admitted = ticket.state.get() == Ticket.GRANTED;
+            return QueueStatus.builder()
+                    .token(ticket.token)
+                    .showtimeId(showtimeId)
+                    .position(admitted ? 0 : Math.max(1, ticket.sequence - admittedUpTo.get() + 1))
+                    .admitted(admitted)
+                    .build();
+        }
+    }
+
+    private static final class Ticket {
+
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CLAIMED = 2;
+        private static final int EXPIRED = 3;
+
+        private final String token;
+        private final Lane lane;
+        private final String username;
+        private final long sequence;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile long lastSeen;
+        private volatile long grantedAt;
+
+        private Ticket(String token, Lane lane, String username, long sequence, long now) {
+            this.token = token;
+            this.lane = lane;
+            this.username = username;
+            this.sequence = sequence;
+            this.lastSeen = now;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.movie.catalog;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.dto.ImportRecord;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads catalog import records one at a time, so an import of any size is never held in memory. NDJSON input has
+ * one {@link ImportRecord} object per line. CSV input has the record type in the first column and, after it, the
+ * columns of that type:
+ * <pre>
+ * theater,ref,name,location
+ * screen,ref,theater,name
+ * seat,screen,row,number
+ * movie,ref,title,duration,genre,description,posterUrl
+ * showtime,movie,screen,startTime,endTime,price
+ * </pre>
+ * CSV fields may be quoted, with quotes inside a quoted field doubled, and trailing columns may be left out.
+ * Blank lines are skipped in both formats.
+ */
+public abstract class CatalogImportReader implements Closeable {
+
+    public static CatalogImportReader ndjson(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return new Ndjson(objectMapper.readerFor(ImportRecord.class).readValues(in));
+    }
+
+    public static CatalogImportReader csv(InputStream in) {
+        return new Csv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    // The next record, or null at the end of the input
+    public abstract ImportRecord next() throws IOException;
+
+    // The line of the input the last record was read from
+    public abstract long line();
+
+    private static final class Ndjson extends CatalogImportReader {
+
+        private final MappingIterator<ImportRecord> records;
+
+        private Ndjson(MappingIterator<ImportRecord> records) {
+            this.records = records;
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            return records.hasNextValue() ? records.nextValue() : null;
+        }
+
+        @Override
+        public long line() {
+            return records.getCurrentLocation().getLineNr();
+        }
+
+        @Override
+        public void close() throws IOException {
+            records.close();
+        }
+    }
+
+    private static final class Csv extends CatalogImportReader {
+
+        private final BufferedReader reader;
+        private long line;
+
+        private Csv(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+            List<String> columns = split(text);
+            ImportRecord record = new ImportRecord();
+            record.setType(columns.get(0));
+            switch (columns.get(0).toLowerCase()) {
+                case "theater" -> {
+                    record.setRef(column(columns, 1));
+                    record.setName(column(columns, 2));
+                    record.setLocation(column(columns, 3));
+                }
+                case "screen" -> {
+                    record.setRef(column(columns, 1));
+                    record.setTheater(column(columns, 2));
+                    record.setName(column(columns, 3));
+                }
+                case "seat" -> {
+                    record.setScreen(column(columns, 1));
+                    record.setRow(column(columns, 2));
+                    record.setNumber(integer(column(columns, 3)));
+                }
+                case "movie" -> {
+                    record.setRef(column(columns, 1));
+                    record.setTitle(column(columns, 2));
+                    record.setDuration(integer(column(columns, 3)));
+                    record.setGenre(column(columns, 4));
+                    record.setDescription(column(columns, 5));
+                    record.setPosterUrl(column(columns, 6));
+                }
+                case "showtime" -> {
+                    record.setMovie(column(columns, 1));
+                    record.setScreen(column(columns, 2));
+                    String start = column(columns, 3);
+                    String end = column(columns, 4);
+                    String price = column(columns, 5);
+                    record.setStartTime(start == null ? null : LocalDateTime.parse(start));
+                    record.setEndTime(end == null ? null : LocalDateTime.parse(end));
+                    record.setPrice(price == null ? null : new BigDecimal(price));
+                }
+                default -> {
+                    // Left to the importer, which rejects unknown types
+                }
+            }
+            return record;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static String column(List<String> columns, int index) {
+            return index < columns.size() && !columns.get(index).isEmpty() ? columns.get(index) : null;
+        }
+
+        private static Integer integer(String value) {
+            try {
+                return value == null ? null : Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number " + value);
+            }
+        }
+
+        private static List<String> split(String text) {
+            List<String> columns = new ArrayList<>();
+            StringBuilder column = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        column.append(c);
+                    } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        column.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    columns.add(column.toString().trim());
+                    column.setLength(0);
+                } else {
+                    column.append(c);
+                }
+            }
+            columns.add(column.toString().trim());
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.movie.catalog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movie.catalog.CatalogVersions.Part;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps successful responses of the public catalog endpoints as serialized bytes, gzipped once when that makes them
+ * smaller, and serves them until the catalog parts they were built from change. Each response carries a strong ETag
+ * of its bytes, so a client sending it back in {@code If-None-Match} gets 304 Not Modified without a body.
+ * Movies, theaters and single showtimes may be reused by clients for {@code catalog.response-cache.max-age} seconds;
+ * listings that include seat counts must always be revalidated. A listing with seat counts names the showtimes it
+ * lists through {@link #showtimesListed}, and is rebuilt only once the seats of one of those showtimes change.
+ * Seats, seat maps, seat events and occupancy are never cached here.
+ */
+@Component
+public class CatalogResponseCache extends OncePerRequestFilter {
+
+    private static final List<Part> MOVIES = List.of(Part.MOVIES);
+    private static final List<Part> THEATERS = List.of(Part.THEATERS);
+    private static final List<Part> SHOWTIMES = List.of(Part.SHOWTIMES, Part.MOVIES, Part.THEATERS);
+    private static final String SHOWTIMES_LISTED = CatalogResponseCache.class.getName() + ".showtimes";
+
+    private static final List<Route> ROUTES = List.of(
+            new Route("/api/movies", MOVIES, false),
+            new Route("/api/movies/{id:\\d+}", MOVIES, false),
+            new Route("/api/movies/genre/*", MOVIES, false),
+            new Route("/api/movies/search", MOVIES, false),
+            new Route("/api/theaters", THEATERS, false),
+            new Route("/api/theaters/{id:\\d+}", THEATERS, false),
+            new Route("/api/theaters/search", THEATERS, false),
+            new Route("/api/showtimes/{id:\\d+}", SHOWTIMES, false),
+            new Route("/api/showtimes", SHOWTIMES, true),
+            new Route("/api/showtimes/movie/*", SHOWTIMES, true),
+            new Route("/api/showtimes/date-range", SHOWTIMES, true),
+            new Route("/api/showtimes/whats-on", SHOWTIMES, true));
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final CatalogVersions catalogVersions;
+
+    @Value("${catalog.response-cache.spec}")
+    private String spec;
+
+    @Value("${catalog.response-cache.max-age}")
+    private long maxAge;
+
+    private Cache<String, Entry> entries;
+
+    @Autowired
+    public CatalogResponseCache(CatalogVersions catalogVersions) {
+        this.catalogVersions = catalogVersions;
+    }
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.from(spec).build();
+    }
+
+    // Called by endpoints whose responses carry seat counts, with the showtimes they are for
+    public static void showtimesListed(Collection<Long> showtimeIds) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(SHOWTIMES_LISTED, showtimeIds.stream().mapToLong(Long::longValue).toArray(),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Route route = route(request);
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + '?' + request.getQueryString();
+        long[] versions = catalogVersions.current(route.parts);
+        long seatChanges = catalogVersions.seatChanges();
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null || !Arrays.equals(entry.versions, versions) || !seatsCurrent(entry)) {
+            ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, captured);
+            if (captured.getStatus() != HttpServletResponse.SC_OK) {
+                captured.copyBodyToResponse();
+                return;
+            }
+            long[] showtimeIds = route.seats ? (long[]) request.getAttribute(SHOWTIMES_LISTED) : new long[0];
+            long[] seatStamps = showtimeIds == null ? null : seatStamps(showtimeIds);
+            entry = new Entry(captured.getContentAsByteArray(), captured.getContentType(), versions,
+                    showtimeIds, seatStamps, route.seats ? "no-cache" : "public, max-age=" + maxAge);
+            // A write committed while the response was being built may be missing from it, so it is served, not kept;
+            // so is a listing that did not name its showtimes
+            if (Arrays.equals(versions, catalogVersions.current(route.parts))
+                    && seatStamps != null && Arrays.stream(seatStamps).allMatch(stamp -> stamp <= seatChanges)) {
+                entries.put(key, entry);
+            }
+        }
+        write(entry, request, response);
+    }
+
+    private long[] seatStamps(long[] showtimeIds) {
+        long[] stamps = new long[showtimeIds.length];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = catalogVersions.seatStamp(showtimeIds[i]);
+        }
+        return stamps;
+    }
+
+    private boolean seatsCurrent(Entry entry) {
+        for (int i = 0; i < entry.showtimeIds.length; i++) {
+            if (catalogVersions.seatStamp(entry.showtimeIds[i]) != entry.seatStamps[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : ROUTES) {
+            if (pathMatcher.match(route.pattern, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static void write(Entry entry, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        boolean gzip = entry.gzipped != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.ETAG, gzip ? entry.gzippedETag : entry.eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, entry.cacheControl);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = gzip ? entry.gzipped : entry.body;
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentType(entry.contentType);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Either representation is current, so a tag of either one means the client's copy is up to date
+    private static boolean matches(String ifNoneMatch, Entry entry) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(entry.eTag) || trimmed.equals(entry.gzippedETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Route {
+
+        private final String pattern;
+        private final List<Part> parts;
+        private final boolean seats;
+
+        private Route(String pattern, List<Part> parts, boolean seats) {
+            this.pattern = pattern;
+            this.parts = parts;
+            this.seats = seats;
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] body;
+        private final byte[] gzipped;
+        private final String contentType;
+        private final String eTag;
+        private final String gzippedETag;
+        private final String cacheControl;
+        private final long[] versions;
+        // The showtimes whose seat counts the response carries, with their seat stamps when it was built
+        private final long[] showtimeIds;
+        private final long[] seatStamps;
+
+        private Entry(byte[] body, String contentType, long[] versions, long[] showtimeIds, long[] seatStamps,
+                      String cacheControl) {
+            this.body = body;
+            this.contentType = contentType;
+            this.versions = versions;
+            this.showtimeIds = showtimeIds;
+            this.seatStamps = seatStamps;
+            this.cacheControl = cacheControl;
+            byte[] compressed = gzip(body);
+            this.gzipped = compressed.length < body.length ? compressed : null;
+            String hash = HexFormat.of().formatHex(sha256(body), 0, 16);
+            this.eTag = "\"" + hash + "\"";
+            this.gzippedETag = "\"" + hash + "-gzip\"";
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.toByteArray();
+        }
+
+        private static byte[] sha256(byte[] body) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(body);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
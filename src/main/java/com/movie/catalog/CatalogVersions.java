@@ -0,0 +1,99 @@
+package com.movie.catalog;
+
+import com.movie.inventory.SeatInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters for the parts of the catalog that cached responses are built from. Writers move a part on once
+ * their transaction commits, so a response remembered at other versions of the parts it was built from is known to
+ * be out of date. Seats are versioned per showtime instead: every seat change reported by the seat inventory stamps
+ * its showtime with the next value of one sequence, so a listing is out of date only once a showtime it lists is
+ * stamped again, and a stamp above the sequence read before a listing was built means it may be missing from it.
+ */
+// The what's-on cache listens to the seat inventory too; listening after it, a showtime is only stamped once the
+// cached days show its change
+@Component
+@DependsOn("whatsOnCache")
+public class CatalogVersions {
+
+    public enum Part { MOVIES, THEATERS, SHOWTIMES }
+
+    private final AtomicLongArray versions = new AtomicLongArray(Part.values().length);
+    private final AtomicLong seatChanges = new AtomicLong();
+    // Showtimes whose seats never changed have no stamp and are at 0
+    private final Map<Long, Long> seatStamps = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CatalogVersions(SeatInventory seatInventory) {
+        seatInventory.addListener(delta -> stamp(delta.getShowtimeId()));
+    }
+
+    // Moves the given parts on once the transaction commits, or right away outside of one
+    public void changed(Part... parts) {
+        afterCommit(() -> {
+            for (Part part : parts) {
+                versions.incrementAndGet(part.ordinal());
+            }
+        });
+    }
+
+    // For seat changes made outside the seat inventory, such as bookings cancelled in bulk or a new seat layout
+    public void seatsChanged(Collection<Long> showtimeIds) {
+        afterCommit(() -> showtimeIds.forEach(this::stamp));
+    }
+
+    /**
+     * Moves the showtimes on and forgets the seat stamps of the deleted ones. Their stamps go only once the showtimes
+     * have moved on, so no response listing them can be found current again.
+     */
+    public void showtimesDeleted(Collection<Long> showtimeIds) {
+        afterCommit(() -> {
+            versions.incrementAndGet(Part.SHOWTIMES.ordinal());
+            seatStamps.keySet().removeAll(showtimeIds);
+        });
+    }
+
+    long[] current(List<Part> parts) {
+        long[] current = new long[parts.size()];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = versions.get(parts.get(i).ordinal());
+        }
+        return current;
+    }
+
+    long seatChanges() {
+        return seatChanges.get();
+    }
+
+    long seatStamp(Long showtimeId) {
+        return seatStamps.getOrDefault(showtimeId, 0L);
+    }
+
+    private void stamp(Long showtimeId) {
+        seatStamps.merge(showtimeId, seatChanges.incrementAndGet(), Math::max);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.movie.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Read-through caches for the movie and theater catalog. Puts and evictions made inside a
+ * transaction only reach the cache once it commits, so a rolled back write never shows up.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String MOVIES = "movies";
+    public static final String MOVIE_LIST = "movieList";
+    public static final String THEATERS = "theaters";
+    public static final String THEATER_LIST = "theaterList";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${catalog.cache.spec}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(MOVIES, MOVIE_LIST, THEATERS, THEATER_LIST);
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
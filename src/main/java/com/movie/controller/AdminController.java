@@ -0,0 +1,112 @@
+package com.movie.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.movie.dto.BulkCancellation;
+import com.movie.dto.CacheStatistics;
+import com.movie.dto.PipelineStats;
+import com.movie.service.BookingService;
+import com.movie.service.CatalogImportService;
+import com.movie.service.impl.BookingWritePipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    private final BookingWritePipeline bookingWritePipeline;
+    private final BookingService bookingService;
+    private final CacheManager cacheManager;
+    private final CatalogImportService catalogImportService;
+
+    @Autowired
+    public AdminController(BookingWritePipeline bookingWritePipeline, BookingService bookingService,
+                           CacheManager cacheManager, CatalogImportService catalogImportService) {
+        this.bookingWritePipeline = bookingWritePipeline;
+        this.bookingService = bookingService;
+        this.cacheManager = cacheManager;
+        this.catalogImportService = catalogImportService;
+    }
+
+    @GetMapping("/booking-pipeline")
+    public ResponseEntity<PipelineStats> getBookingPipelineStats() {
+        return ResponseEntity.ok(bookingWritePipeline.getStats());
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<List<CacheStatistics>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.getCacheNames().stream()
+                .map(this::cacheStats)
+                .toList());
+    }
+
+    @PostMapping("/showtimes/{id}/cancel-bookings")
+    public ResponseEntity<BulkCancellation> cancelBookingsForShowtime(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(bookingService.cancelBookingsForShowtime(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/screens/{id}/cancel-bookings")
+    public ResponseEntity<?> cancelBookingsForScreen(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(bookingService.cancelBookingsForScreen(id, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // The body is read as it arrives, so the import never has to fit in memory
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importNdjson(InputStream body) {
+        try {
+            return ResponseEntity.ok(catalogImportService.importNdjson(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<?> importCsv(InputStream body) {
+        try {
+            return ResponseEntity.ok(catalogImportService.importCsv(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private CacheStatistics cacheStats(String name) {
+        Object cache = cacheManager.getCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return CacheStatistics.builder()
+                .name(name)
+                .size(nativeCache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
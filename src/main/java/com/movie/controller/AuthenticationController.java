@@ -6,6 +6,7 @@ import com.movie.dto.RegisterRequest;
 import com.movie.model.User;
 import com.movie.repository.UserRepository;
 import com.movie.security.JwtService;
+import com.movie.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -30,6 +31,7 @@ public class AuthenticationController {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Autowired
     public AuthenticationController(
@@ -37,12 +39,14 @@ public class AuthenticationController {
             PasswordEncoder passwordEncoder,
             JwtService jwtService,
             AuthenticationManager authenticationManager,
-            UserDetailsService userDetailsService) {
+            UserDetailsService userDetailsService,
+            PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @PostMapping("/register")
@@ -65,6 +69,8 @@ public class AuthenticationController {
                 .build();
 
         userRepository.save(user);
+        // An id can only have been cached as unknown, e.g. from a token signed before the database was reset
+        principalCache.evict(user.getId());
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
         var jwtToken = jwtService.generateToken(userDetails);
@@ -1,100 +1,162 @@
 package com.movie.controller;
 
+import com.movie.admission.Admission;
+import com.movie.admission.AdmissionControl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.dto.BookingView;
+import com.movie.dto.CursorPage;
+import com.movie.dto.QueueStatus;
+import com.movie.idempotency.IdempotencyStore;
+import com.movie.inventory.NoAdjacentSeatsException;
 import com.movie.model.Booking;
-import com.movie.model.Seat;
 import com.movie.model.Showtime;
-import com.movie.model.User;
 import com.movie.repository.UserRepository;
+import com.movie.security.AuthenticatedUser;
 import com.movie.service.BookingService;
 import com.movie.service.ShowtimeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final BookingService bookingService;
     private final ShowtimeService showtimeService;
     private final UserRepository userRepository;
+    private final AdmissionControl admissionControl;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     @Autowired
     public BookingController(BookingService bookingService, ShowtimeService showtimeService,
-                            UserRepository userRepository) {
+                            UserRepository userRepository, AdmissionControl admissionControl,
+                            IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
         this.showtimeService = showtimeService;
         this.userRepository = userRepository;
+        this.admissionControl = admissionControl;
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Booking>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<CursorPage<BookingView>> getBookings(@RequestParam(required = false) Long after,
+                                                               @RequestParam(defaultValue = CursorPage.DEFAULT_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(bookingService.getBookings(after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // All bookings as one JSON array, written while they are read so memory use does not grow with the table
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                bookingService.exportBookings(booking -> writeRecord(json, booking));
+                json.writeEndArray();
+            }
+        });
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @bookingOwnershipChecker.isOwner(authentication, #id)")
-    public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
-        return bookingService.getBookingById(id)
+    public ResponseEntity<BookingView> getBookingById(@PathVariable Long id) {
+        return bookingService.getBookingView(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/my-bookings")
-    public ResponseEntity<List<Booking>> getMyBookings() {
-        User currentUser = getCurrentUser();
-        if (currentUser == null) {
+    public ResponseEntity<List<BookingView>> getMyBookings() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(bookingService.getBookingsByUser(currentUser));
+        return ResponseEntity.ok(bookingService.getBookingViewsByUsername(authentication.getName()));
     }
 
     @PostMapping("/showtime/{showtimeId}")
     public ResponseEntity<?> createBooking(@PathVariable Long showtimeId,
-                                           @RequestBody Set<Long> seatIds) {
-        try {
-            User currentUser = getCurrentUser();
-            if (currentUser == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
+                                           @RequestBody Set<Long> seatIds,
+                                           @RequestHeader(value = QUEUE_TOKEN_HEADER, required = false) String queueToken,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "book:" + showtimeId + ":" + new TreeSet<>(seatIds),
+                () -> admitted(showtimeId, queueToken, () -> bookSeats(showtimeId, seatIds, false)));
+    }
 
-            Optional<Showtime> showtimeOpt = showtimeService.getShowtimeById(showtimeId);
-            if (showtimeOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
+    @PostMapping("/showtime/{showtimeId}/hold")
+    public ResponseEntity<?> holdSeats(@PathVariable Long showtimeId,
+                                       @RequestBody Set<Long> seatIds,
+                                       @RequestHeader(value = QUEUE_TOKEN_HEADER, required = false) String queueToken,
+                                       @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "hold:" + showtimeId + ":" + new TreeSet<>(seatIds),
+                () -> admitted(showtimeId, queueToken, () -> bookSeats(showtimeId, seatIds, true)));
+    }
 
-            Showtime showtime = showtimeOpt.get();
+    @PostMapping("/showtime/{showtimeId}/best-available")
+    public ResponseEntity<?> bookBestAvailable(@PathVariable Long showtimeId,
+                                               @RequestParam int count,
+                                               @RequestParam(defaultValue = "false") boolean hold,
+                                               @RequestHeader(value = QUEUE_TOKEN_HEADER, required = false) String queueToken,
+                                               @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "best:" + showtimeId + ":" + count + ":" + hold,
+                () -> admitted(showtimeId, queueToken, () -> bookBestAvailable(showtimeId, count, hold)));
+    }
 
-            // Collect all the seats
-            Set<Seat> seats = showtimeOpt.get().getScreen().getSeats().stream()
-                .filter(seat -> seatIds.contains(seat.getId()))
-                .collect(java.util.stream.Collectors.toSet());
+    @GetMapping("/queue/{token}")
+    public ResponseEntity<QueueStatus> getQueueStatus(@PathVariable String token) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return admissionControl.getStatus(token, authentication.getName())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-            if (seats.size() != seatIds.size()) {
-                return ResponseEntity.badRequest().body("One or more seats are invalid");
+    @PutMapping("/{id}/confirm")
+    public ResponseEntity<?> confirmBooking(@PathVariable Long id) {
+        try {
+            Optional<Booking> bookingOpt = bookingService.getBookingById(id);
+            if (bookingOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
             }
 
-            // Check seat availability
-            for (Seat seat : seats) {
-                if (!bookingService.isSeatAvailableForShowtime(seat, showtime)) {
-                    return ResponseEntity.badRequest().body("Seat " + seat.getRow() + seat.getNumber() + " is not available");
-                }
+            if (!bookingOpt.get().getUser().getId().equals(getCurrentUserId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            Booking booking = bookingService.createBooking(currentUser, showtime, seats);
-            return ResponseEntity.status(HttpStatus.CREATED).body(booking);
-
-        } catch (Exception e) {
+            return ResponseEntity.ok(BookingView.of(bookingService.confirmBooking(id)));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return unavailable(e);
         }
     }
 
@@ -107,26 +169,124 @@ public class BookingController {
             }
 
             Booking booking = bookingOpt.get();
-            User currentUser = getCurrentUser();
 
             // Check if the booking belongs to the current user
-            if (!booking.getUser().getId().equals(currentUser.getId()) &&
-                    !currentUser.getRoles().contains("ROLE_ADMIN")) {
+            if (!booking.getUser().getId().equals(getCurrentUserId()) && !isAdmin()) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
             booking = bookingService.updateBookingStatus(id, Booking.BookingStatus.CANCELLED);
-            return ResponseEntity.ok(booking);
-        } catch (Exception e) {
+            return ResponseEntity.ok(BookingView.of(booking));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return unavailable(e);
+        }
+    }
+
+    // With an Idempotency-Key, a retry of the same request by the same user gets the first response back
+    private ResponseEntity<?> idempotent(String idempotencyKey, String fingerprint, Supplier<ResponseEntity<?>> request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (idempotencyKey == null || authentication == null) {
+            return request.get();
+        }
+        return idempotencyStore.execute(authentication.getName(), idempotencyKey, fingerprint, request);
+    }
+
+    // Runs the request only once the showtime's waiting room lets it in; otherwise returns its place in the queue
+    private ResponseEntity<?> admitted(Long showtimeId, String queueToken, Supplier<ResponseEntity<?>> request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        // Checked before the waiting room, which would otherwise keep a lane for any id it is sent
+        if (!showtimeService.showtimeExists(showtimeId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try (Admission admission = admissionControl.enter(showtimeId, queueToken, authentication.getName())) {
+            if (admission.isAdmitted()) {
+                return request.get();
+            }
+            if (admission.getQueueStatus() == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body("Booking queue is full, please try again later");
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(admission.getQueueStatus());
+        }
+    }
+
+    private ResponseEntity<?> bookSeats(Long showtimeId, Set<Long> seatIds, boolean hold) {
+        try {
+            Long userId = getCurrentUserId();
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            return bookingService.bookSeats(userId, showtimeId, seatIds, hold)
+                    .<ResponseEntity<?>>map(booking -> ResponseEntity.status(HttpStatus.CREATED).body(BookingView.of(booking)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return unavailable(e);
+        }
+    }
+
+    private ResponseEntity<?> bookBestAvailable(Long showtimeId, int count, boolean hold) {
+        try {
+            Long userId = getCurrentUserId();
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            Optional<Showtime> showtimeOpt = showtimeService.getShowtimeById(showtimeId);
+            if (showtimeOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Booking booking = bookingService.bookBestAvailable(userRepository.getReferenceById(userId),
+                    showtimeOpt.get(), count, hold);
+            return ResponseEntity.status(HttpStatus.CREATED).body(BookingView.of(booking));
+        } catch (NoAdjacentSeatsException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return unavailable(e);
         }
     }
 
-    private User getCurrentUser() {
+    // A write that timed out or a stopped pipeline says nothing about the request, so it is answered as retryable
+    private static ResponseEntity<?> unavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    // Token-authenticated requests carry the id in their principal; only other principals are looked up
+    private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return null;
         }
-        return userRepository.findByUsername(authentication.getName()).orElse(null);
+        Long userId = AuthenticatedUser.idOf(authentication);
+        return userId != null ? userId : userRepository.findIdByUsername(authentication.getName()).orElse(null);
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    private static void writeRecord(JsonGenerator json, Booking booking) {
+        try {
+            json.writeObject(BookingView.of(booking));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.movie.controller;
 
+import com.movie.dto.CursorPage;
 import com.movie.model.Movie;
 import com.movie.service.MovieService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,8 +23,13 @@ public class MovieController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Movie>> getAllMovies() {
-        return ResponseEntity.ok(movieService.getAllMovies());
+    public ResponseEntity<CursorPage<Movie>> getMovies(@RequestParam(required = false) Long after,
+                                                       @RequestParam(defaultValue = CursorPage.DEFAULT_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(movieService.getMovies(after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -39,8 +45,9 @@ public class MovieController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Movie>> searchMovies(@RequestParam String title) {
-        return ResponseEntity.ok(movieService.searchMoviesByTitle(title));
+    public ResponseEntity<List<Movie>> searchMovies(@RequestParam String title,
+                                                    @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(movieService.searchMoviesByTitle(title, limit));
     }
 
     @PostMapping
@@ -0,0 +1,50 @@
+package com.movie.controller;
+
+import com.movie.dto.LayoutTemplate;
+import com.movie.dto.ScreenRequest;
+import com.movie.dto.ScreenView;
+import com.movie.service.ScreenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/screens")
+public class ScreenController {
+
+    private final ScreenService screenService;
+
+    @Autowired
+    public ScreenController(ScreenService screenService) {
+        this.screenService = screenService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ScreenView> getScreen(@PathVariable Long id) {
+        return screenService.getScreen(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createScreen(@RequestBody ScreenRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(screenService.createScreen(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/layout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> regenerateSeats(@PathVariable Long id, @RequestBody LayoutTemplate layout) {
+        try {
+            return ResponseEntity.ok(screenService.regenerateSeats(id, layout));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
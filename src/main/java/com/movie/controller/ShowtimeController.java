@@ -1,19 +1,35 @@
 package com.movie.controller;
 
-import com.movie.model.Seat;
+import com.movie.catalog.CatalogResponseCache;
+import com.movie.dto.CursorPage;
+import com.movie.dto.Occupancy;
+import com.movie.dto.ScheduleConflict;
+import com.movie.dto.SeatMap;
+import com.movie.dto.SeatView;
+import com.movie.dto.ShowtimeView;
+import com.movie.dto.WhatsOn;
 import com.movie.model.Showtime;
+import com.movie.schedule.ScheduleConflictException;
 import com.movie.service.BookingService;
 import com.movie.service.MovieService;
 import com.movie.service.ShowtimeService;
+import com.movie.stream.SeatEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RestController
@@ -23,64 +39,141 @@ public class ShowtimeController {
     private final ShowtimeService showtimeService;
     private final MovieService movieService;
     private final BookingService bookingService;
+    private final SeatEventPublisher seatEventPublisher;
 
     @Autowired
-    public ShowtimeController(ShowtimeService showtimeService, MovieService movieService, BookingService bookingService) {
+    public ShowtimeController(ShowtimeService showtimeService, MovieService movieService, BookingService bookingService,
+                              SeatEventPublisher seatEventPublisher) {
         this.showtimeService = showtimeService;
         this.movieService = movieService;
         this.bookingService = bookingService;
+        this.seatEventPublisher = seatEventPublisher;
     }
 
     @GetMapping
-    public ResponseEntity<List<Showtime>> getAllShowtimes() {
-        return ResponseEntity.ok(showtimeService.getAllShowtimes());
+    public ResponseEntity<CursorPage<ShowtimeView>> getShowtimes(@RequestParam(required = false) String after,
+                                                                 @RequestParam(defaultValue = CursorPage.DEFAULT_SIZE) int size) {
+        try {
+            CursorPage<ShowtimeView> page = showtimeService.getShowtimes(after, size);
+            withOccupancy(page.getItems());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Everything on for the day in one response, for the home page; defaults to today
+    @GetMapping("/whats-on")
+    public ResponseEntity<WhatsOn> getWhatsOn(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String location) {
+        WhatsOn whatsOn = showtimeService.getWhatsOn(date == null ? LocalDate.now() : date, location);
+        CatalogResponseCache.showtimesListed(whatsOn.getMovies().stream()
+                .flatMap(movie -> movie.getTheaters().stream())
+                .flatMap(theater -> theater.getShowtimes().stream())
+                .map(WhatsOn.ShowtimeListing::getShowtimeId)
+                .toList());
+        return ResponseEntity.ok(whatsOn);
+    }
+
+    // At most a page's worth of showtimes at once; an id given twice is answered once
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<Occupancy>> getOccupancy(@RequestParam List<Long> ids) {
+        Set<Long> showtimeIds = new LinkedHashSet<>(ids);
+        if (showtimeIds.size() > CursorPage.MAX_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new ArrayList<>(bookingService.getOccupancy(showtimeIds).values()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Showtime> getShowtimeById(@PathVariable Long id) {
-        return showtimeService.getShowtimeById(id)
+    public ResponseEntity<ShowtimeView> getShowtimeById(@PathVariable Long id) {
+        return showtimeService.getShowtimeView(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/movie/{movieId}")
-    public ResponseEntity<List<Showtime>> getShowtimesByMovie(@PathVariable Long movieId) {
+    public ResponseEntity<List<ShowtimeView>> getShowtimesByMovie(@PathVariable Long movieId) {
         return movieService.getMovieById(movieId)
-                .map(movie -> ResponseEntity.ok(showtimeService.getShowtimesByMovie(movie)))
+                .map(movie -> ResponseEntity.ok(withOccupancy(showtimeService.getShowtimesByMovie(movie))))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<List<Showtime>> getShowtimesByDateRange(
+    public ResponseEntity<List<ShowtimeView>> getShowtimesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return ResponseEntity.ok(showtimeService.getShowtimesByDateRange(startDate, endDate));
+        return ResponseEntity.ok(withOccupancy(showtimeService.getShowtimesByDateRange(startDate, endDate)));
     }
 
     @GetMapping("/{id}/seats")
-    public ResponseEntity<Set<Seat>> getAvailableSeatsForShowtime(@PathVariable Long id) {
+    public ResponseEntity<List<SeatView>> getAvailableSeatsForShowtime(@PathVariable Long id) {
         return showtimeService.getShowtimeById(id)
                 .map(showtime -> ResponseEntity.ok(bookingService.getAvailableSeatsForShowtime(showtime)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/seat-map")
+    public ResponseEntity<SeatMap> getSeatMap(@PathVariable Long id) {
+        // A matching If-None-Match is answered with 304 by Spring before the body is serialized
+        return bookingService.getSeatMap(id)
+                .map(seatMap -> ResponseEntity.ok()
+                        .eTag("\"" + seatMap.getVersion() + "\"")
+                        .cacheControl(CacheControl.noCache())
+                        .body(seatMap))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}/seat-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeatEvents(@PathVariable Long id) {
+        return seatEventPublisher.subscribe(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Showtime> addShowtime(@RequestBody Showtime showtime) {
+    public ResponseEntity<?> addShowtime(@RequestBody Showtime showtime) {
         try {
-            return ResponseEntity.status(HttpStatus.CREATED).body(showtimeService.addShowtime(showtime));
+            return ResponseEntity.status(HttpStatus.CREATED).body(ShowtimeView.of(showtimeService.addShowtime(showtime)));
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getConflicts());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> addShowtimes(@RequestBody List<Showtime> showtimes) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(showtimeService.addShowtimes(showtimes).stream()
+                    .map(ShowtimeView::of)
+                    .toList());
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getConflicts());
+        }
+    }
+
+    @PostMapping("/validate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ScheduleConflict>> validateSchedule(@RequestBody List<Showtime> showtimes) {
+        return ResponseEntity.ok(showtimeService.validateSchedule(showtimes));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Showtime> updateShowtime(@PathVariable Long id, @RequestBody Showtime showtime) {
+    public ResponseEntity<?> updateShowtime(@PathVariable Long id, @RequestBody Showtime showtime) {
+        if (!showtimeService.showtimeExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
         try {
-            return ResponseEntity.ok(showtimeService.updateShowtime(id, showtime));
+            return ResponseEntity.ok(ShowtimeView.of(showtimeService.updateShowtime(id, showtime)));
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getConflicts());
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().build();
         }
     }
 
@@ -94,4 +187,12 @@ public class ShowtimeController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private List<ShowtimeView> withOccupancy(List<ShowtimeView> showtimes) {
+        List<Long> ids = showtimes.stream().map(ShowtimeView::getId).toList();
+        Map<Long, Occupancy> occupancy = bookingService.getOccupancy(ids);
+        showtimes.forEach(showtime -> showtime.setOccupancy(occupancy.get(showtime.getId())));
+        CatalogResponseCache.showtimesListed(ids);
+        return showtimes;
+    }
 }
@@ -1,5 +1,6 @@
 package com.movie.controller;
 
+import com.movie.dto.CursorPage;
 import com.movie.model.Theater;
 import com.movie.service.TheaterService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,8 +23,13 @@ public class TheaterController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Theater>> getAllTheaters() {
-        return ResponseEntity.ok(theaterService.getAllTheaters());
+    public ResponseEntity<CursorPage<Theater>> getTheaters(@RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = CursorPage.DEFAULT_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(theaterService.getTheaters(after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,50 @@
+package com.movie.dto;
+
+import com.movie.model.Booking;
+import com.movie.model.Seat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A booking as returned by the API, with its user and showtime by id. Read queries build it from a JPQL
+ * constructor expression and fill in {@code seats} with one more query for the whole batch.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingView {
+    private Long id;
+    private Long userId;
+    private Long showtimeId;
+    private List<SeatView> seats;
+    private LocalDateTime bookingTime;
+    private Booking.BookingStatus status;
+    private LocalDateTime holdExpiresAt;
+
+    public BookingView(Long id, Long userId, Long showtimeId, LocalDateTime bookingTime, Booking.BookingStatus status,
+                       LocalDateTime holdExpiresAt) {
+        this(id, userId, showtimeId, null, bookingTime, status, holdExpiresAt);
+    }
+
+    public static BookingView of(Booking booking) {
+        return BookingView.builder()
+                .id(booking.getId())
+                .userId(booking.getUser().getId())
+                .showtimeId(booking.getShowtime().getId())
+                .seats(booking.getSeats().stream()
+                        .sorted(Comparator.comparing(Seat::getId))
+                        .map(seat -> new SeatView(seat.getId(), seat.getRow(), seat.getNumber()))
+                        .toList())
+                .bookingTime(booking.getBookingTime())
+                .status(booking.getStatus())
+                .holdExpiresAt(booking.getHoldExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkCancellation {
+    private List<Long> showtimeIds;
+    private int bookingsCancelled;
+    private int seatsReleased;
+    private int chunks;
+    private long durationMillis;
+}
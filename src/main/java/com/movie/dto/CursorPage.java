@@ -0,0 +1,39 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list read by keyset. {@code nextCursor} is passed back as the {@code after} parameter
+ * to read the next page and is null on the last page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    public static final String DEFAULT_SIZE = "50";
+    public static final int MAX_SIZE = 500;
+
+    private List<T> items;
+    private String nextCursor;
+
+    public static int limit(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    // A full page may be followed by more; the cursor of its last item leads there
+    public static <T> CursorPage<T> of(List<T> items, int size, Function<T, String> cursor) {
+        String next = items.size() < size ? null : cursor.apply(items.get(items.size() - 1));
+        return new CursorPage<>(items, next);
+    }
+}
@@ -0,0 +1,41 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One line of a catalog import. {@code type} is movie, theater, screen, seat or showtime, and decides which of the
+ * other fields are read. Movies, theaters and screens may be given a {@code ref}, which later lines use in
+ * {@code theater}, {@code screen} and {@code movie} to point at them; a number there that is not a ref of the
+ * import is the id of a row already in the database. A screen may carry a {@code layout} (NDJSON only), which
+ * generates all of its seats at once instead of a seat line for each.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRecord {
+    private String type;
+    private String ref;
+    private String name;
+    private String location;
+    private String theater;
+    private String screen;
+    private LayoutTemplate layout;
+    private String row;
+    private Integer number;
+    private String title;
+    private String description;
+    private Integer duration;
+    private String genre;
+    private String posterUrl;
+    private String movie;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private BigDecimal price;
+}
@@ -0,0 +1,21 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult {
+    private int movies;
+    private int theaters;
+    private int screens;
+    private int seats;
+    private int showtimes;
+    private long rows;
+    private long durationMillis;
+    private long rowsPerSecond;
+}
@@ -0,0 +1,27 @@
+package com.movie.dto;
+
+import com.movie.model.Seat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seat layout of a screen: {@code rows} rows lettered from A, each with {@code seatsPerRow} seats. An aisle runs
+ * after each seat count listed in {@code aisles} and the numbering skips a number across it, so a row of 8 with an
+ * aisle after 4 is numbered 1-4 and 6-9. {@code categories} is keyed by a row letter ("A") or a seat ("A6");
+ * a seat's own entry wins over its row's, and seats not listed are {@link Seat.Category#STANDARD}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LayoutTemplate {
+    private int rows;
+    private int seatsPerRow;
+    private List<Integer> aisles;
+    private Map<String, Seat.Category> categories;
+}
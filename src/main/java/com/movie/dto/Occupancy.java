@@ -0,0 +1,22 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seat counts of a showtime: {@code sold} seats belong to confirmed bookings, {@code held} seats to
+ * pending bookings whose hold has not expired, and the rest of the {@code capacity} is {@code free}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Occupancy {
+    private Long showtimeId;
+    private int capacity;
+    private int sold;
+    private int held;
+    private int free;
+}
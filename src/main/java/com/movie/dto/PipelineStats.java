@@ -0,0 +1,21 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PipelineStats {
+    private long flushes;
+    private long failedFlushes;
+    private long bookingsWritten;
+    private double averageBatchSize;
+    private long maxBatchSize;
+    private double averageFlushMillis;
+    private double maxFlushMillis;
+    private int queued;
+}
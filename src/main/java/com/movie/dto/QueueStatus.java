@@ -0,0 +1,17 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueueStatus {
+    private String token;
+    private Long showtimeId;
+    private long position;
+    private boolean admitted;
+}
@@ -0,0 +1,23 @@
+package com.movie.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A showtime that cannot be scheduled, by its {@code index} in the submitted list. It collides either with
+ * an existing showtime ({@code conflictingShowtimeId}) or with another one of the list ({@code conflictingIndex}).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduleConflict {
+    private int index;
+    private String reason;
+    private Long conflictingShowtimeId;
+    private Integer conflictingIndex;
+}
@@ -0,0 +1,16 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScreenRequest {
+    private Long theaterId;
+    private String name;
+    private LayoutTemplate layout;
+}
@@ -0,0 +1,27 @@
+package com.movie.dto;
+
+import com.movie.model.Seat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A screen with its seat layout. Seats are numbered by position as in {@link SeatMap}; {@code categories} holds a
+ * base64 encoded little-endian bitset over those positions for each category other than STANDARD.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScreenView {
+    private Long id;
+    private Long theaterId;
+    private String name;
+    private int capacity;
+    private List<SeatMap.Row> rows;
+    private Map<Seat.Category, String> categories;
+}
@@ -0,0 +1,21 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatDelta {
+    private Long showtimeId;
+    private long version;
+    private Type type;
+    private List<Long> seatIds;
+
+    public enum Type {
+        HELD, BOOKED, RELEASED
+    }
+}
@@ -0,0 +1,39 @@
+package com.movie.dto;
+
+import com.movie.model.Seat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seat map of a showtime. Seats are numbered by position, row after row in the order of {@code rows};
+ * {@code booked} and {@code held} are base64 encoded little-endian bitsets over those positions, as is each entry
+ * of {@code categories}, one per seat category other than STANDARD that the screen has.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatMap {
+    private Long showtimeId;
+    private Long screenId;
+    private long version;
+    private List<Row> rows;
+    private String booked;
+    private String held;
+    private Map<Seat.Category, String> categories;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Row {
+        private String row;
+        private int firstPosition;
+        private List<Long> seatIds;
+        private List<Integer> numbers;
+    }
+}
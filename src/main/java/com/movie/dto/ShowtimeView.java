@@ -0,0 +1,53 @@
+package com.movie.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.movie.model.Showtime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A showtime as returned by the API, with the names of its movie, screen and theater flattened in.
+ * Read queries build it straight from a JPQL constructor expression; {@code occupancy} is filled in by listings.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShowtimeView {
+    private Long id;
+    private Long movieId;
+    private String movieTitle;
+    private Long screenId;
+    private String screenName;
+    private Long theaterId;
+    private String theaterName;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private BigDecimal price;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Occupancy occupancy;
+
+    public ShowtimeView(Long id, Long movieId, String movieTitle, Long screenId, String screenName, Long theaterId,
+                        String theaterName, LocalDateTime startTime, LocalDateTime endTime, BigDecimal price) {
+        this(id, movieId, movieTitle, screenId, screenName, theaterId, theaterName, startTime, endTime, price, null);
+    }
+
+    // For a showtime just written, whose movie and screen may only carry their ids
+    public static ShowtimeView of(Showtime showtime) {
+        return ShowtimeView.builder()
+                .id(showtime.getId())
+                .movieId(showtime.getMovie().getId())
+                .movieTitle(showtime.getMovie().getTitle())
+                .screenId(showtime.getScreen().getId())
+                .screenName(showtime.getScreen().getName())
+                .startTime(showtime.getStartTime())
+                .endTime(showtime.getEndTime())
+                .price(showtime.getPrice())
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.movie.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything showing on one day: movies by title, each with the theaters showing it by name, each with the
+ * showtimes by start time. {@code location} is null when the listing is not limited to one location.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class WhatsOn {
+    private LocalDate date;
+    private String location;
+    private List<MovieListing> movies;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MovieListing {
+        private Long movieId;
+        private String title;
+        private String genre;
+        private Integer duration;
+        private String posterUrl;
+        private List<TheaterListing> theaters;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TheaterListing {
+        private Long theaterId;
+        private String name;
+        private String location;
+        private List<ShowtimeListing> showtimes;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ShowtimeListing {
+        private Long showtimeId;
+        private Long screenId;
+        private String screenName;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private BigDecimal price;
+        private int remainingSeats;
+    }
+}
@@ -0,0 +1,93 @@
+package com.movie.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response to a request sent with an {@code Idempotency-Key}, so a client retrying
+ * after a timeout gets the original outcome instead of running the request again. A retry that
+ * arrives while the first attempt is still running waits for it. Entries live in a bounded cache
+ * and expire after {@code booking.idempotency.ttl}.
+ */
+@Component
+public class IdempotencyStore {
+
+    @Value("${booking.idempotency.max-entries}")
+    private long maxEntries;
+
+    @Value("${booking.idempotency.ttl}")
+    private long ttl;
+
+    private Cache<String, Entry> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .build();
+    }
+
+    /**
+     * Runs the request once per key and scope. {@code fingerprint} identifies what was asked for;
+     * reusing a key for a different request is answered with 422 Unprocessable Entity.
+     */
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint, Supplier<ResponseEntity<?>> request) {
+        String cacheKey = scope + ':' + key;
+        Entry mine = new Entry(fingerprint);
+        Entry existing = entries.asMap().putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body("Idempotency-Key was already used for a different request");
+            }
+            try {
+                return existing.response.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            entries.asMap().remove(cacheKey, mine);
+            mine.response.completeExceptionally(e);
+            throw e;
+        }
+        // Outcomes that say nothing about the request itself are not kept, so a retry runs it again
+        if (!isFinal(response)) {
+            entries.asMap().remove(cacheKey, mine);
+        }
+        mine.response.complete(response);
+        return response;
+    }
+
+    private static boolean isFinal(ResponseEntity<?> response) {
+        HttpStatus status = HttpStatus.resolve(response.getStatusCode().value());
+        return status != HttpStatus.ACCEPTED
+                && status != HttpStatus.UNAUTHORIZED
+                && !response.getStatusCode().is5xxServerError();
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
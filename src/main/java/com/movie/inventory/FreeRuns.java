@@ -0,0 +1,92 @@
+package com.movie.inventory;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the runs of free seats of one showtime, kept as start position -> end position (exclusive).
+ * Runs never cross a segment of the layout, so every run is a block of seats that sit together.
+ * Updated seat by seat as seats are taken and released; not thread-safe on its own.
+ */
+class FreeRuns {
+
+    // Rows a little behind the middle of the screen are preferred over the very front and back
+    private static final double PREFERRED_ROW = 0.6;
+    private static final double ROW_WEIGHT = 2.0;
+
+    private final ScreenLayout layout;
+    private final TreeMap<Integer, Integer> runs = new TreeMap<>();
+
+    FreeRuns(ScreenLayout layout, BitSet occupied) {
+        this.layout = layout;
+        int position = occupied.nextClearBit(0);
+        while (position < layout.size()) {
+            int end = Math.min(occupied.nextSetBit(position) < 0 ? layout.size() : occupied.nextSetBit(position),
+                    layout.segmentEnd(position));
+            runs.put(position, end);
+            position = occupied.nextClearBit(end);
+        }
+    }
+
+    void occupy(int position) {
+        Map.Entry<Integer, Integer> run = runs.floorEntry(position);
+        if (run == null || position >= run.getValue()) {
+            return;
+        }
+        runs.remove(run.getKey());
+        if (run.getKey() < position) {
+            runs.put(run.getKey(), position);
+        }
+        if (position + 1 < run.getValue()) {
+            runs.put(position + 1, run.getValue());
+        }
+    }
+
+    void free(int position) {
+        int start = position;
+        int end = position + 1;
+        Map.Entry<Integer, Integer> left = runs.lowerEntry(position);
+        if (left != null && left.getValue() == position && left.getKey() >= layout.segmentStart(position)) {
+            start = left.getKey();
+            runs.remove(start);
+        }
+        Integer rightEnd = end < layout.segmentEnd(position) ? runs.remove(end) : null;
+        if (rightEnd != null) {
+            end = rightEnd;
+        }
+        runs.put(start, end);
+    }
+
+    /**
+     * Start position of the best block of {@code count} free seats together, or -1 if there is none.
+     * Blocks are scored by how far they are from the middle of their row and from the preferred row.
+     */
+    int findBest(int count) {
+        int best = -1;
+        double bestScore = Double.MAX_VALUE;
+        int rowCount = layout.rowCount();
+        double preferredRow = (rowCount - 1) * PREFERRED_ROW;
+        for (Map.Entry<Integer, Integer> run : runs.entrySet()) {
+            int runStart = run.getKey();
+            int runEnd = run.getValue();
+            if (runEnd - runStart < count) {
+                continue;
+            }
+            int row = layout.rowOf(runStart);
+            int rowSize = layout.rowSize(row);
+            double rowCenter = layout.rowStart(row) + (rowSize - 1) / 2.0;
+            // Slide the block inside the run as close to the row's center as it goes
+            int start = (int) Math.round(rowCenter - (count - 1) / 2.0);
+            start = Math.max(runStart, Math.min(start, runEnd - count));
+            double horizontal = Math.abs(start + (count - 1) / 2.0 - rowCenter) / rowSize;
+            double vertical = rowCount > 1 ? Math.abs(row - preferredRow) / (rowCount - 1) : 0;
+            double score = horizontal + ROW_WEIGHT * vertical;
+            if (score < bestScore) {
+                bestScore = score;
+                best = start;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,11 @@
+package com.movie.inventory;
+
+/**
+ * Thrown when a showtime has no block of the requested number of free seats together.
+ */
+public class NoAdjacentSeatsException extends IllegalArgumentException {
+
+    public NoAdjacentSeatsException(int count) {
+        super("No " + count + " adjacent seats available for the selected showtime");
+    }
+}
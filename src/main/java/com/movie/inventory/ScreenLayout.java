@@ -0,0 +1,150 @@
+package com.movie.inventory;
+
+import com.movie.dto.SeatMap;
+import com.movie.model.Seat;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable seat layout of a screen. Seats are numbered by position (row, then seat number)
+ * so that per-showtime state can be kept in a bitset indexed by position. Seats next to each other
+ * in a row with consecutive numbers form a segment; a gap in the numbering (an aisle) ends one.
+ * Row, number and category are kept by position too, so nothing needs the seat entities once it is built.
+ */
+public final class ScreenLayout {
+
+    private final Long screenId;
+    private final long[] seatIds;
+    private final int[] numbers;
+    private final Seat.Category[] categoryOf;
+    private final Map<Seat.Category, String> categories;
+    private final Map<Long, Integer> positions;
+    private final List<SeatMap.Row> rows;
+    private final int[] rowOf;
+    private final int[] segmentStart;
+    private final int[] segmentEnd;
+
+    public ScreenLayout(Long screenId, List<Seat> orderedSeats) {
+        int size = orderedSeats.size();
+        this.screenId = screenId;
+        this.seatIds = new long[size];
+        this.numbers = new int[size];
+        this.categoryOf = new Seat.Category[size];
+        this.positions = new HashMap<>(size * 2);
+        this.rowOf = new int[size];
+        this.segmentStart = new int[size];
+        this.segmentEnd = new int[size];
+        List<SeatMap.Row> rows = new ArrayList<>();
+        SeatMap.Row current = null;
+        int segment = 0;
+        for (int i = 0; i < size; i++) {
+            Seat seat = orderedSeats.get(i);
+            seatIds[i] = seat.getId();
+            numbers[i] = seat.getNumber();
+            categoryOf[i] = seat.getCategory() == null ? Seat.Category.STANDARD : seat.getCategory();
+            positions.put(seat.getId(), i);
+            if (current == null || !current.getRow().equals(seat.getRow())) {
+                current = new SeatMap.Row(seat.getRow(), i, new ArrayList<>(), new ArrayList<>());
+                rows.add(current);
+                segment = i;
+            } else if (seat.getNumber() != orderedSeats.get(i - 1).getNumber() + 1) {
+                segment = i;
+            }
+            current.getSeatIds().add(seat.getId());
+            current.getNumbers().add(seat.getNumber());
+            rowOf[i] = rows.size() - 1;
+            segmentStart[i] = segment;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            segmentEnd[i] = i + 1 < size && segmentStart[i + 1] == segmentStart[i] ? segmentEnd[i + 1] : i + 1;
+        }
+        rows.replaceAll(row -> new SeatMap.Row(row.getRow(), row.getFirstPosition(),
+                List.copyOf(row.getSeatIds()), List.copyOf(row.getNumbers())));
+        this.rows = Collections.unmodifiableList(rows);
+        this.categories = encodeCategories(categoryOf);
+    }
+
+    public Long getScreenId() {
+        return screenId;
+    }
+
+    public int size() {
+        return seatIds.length;
+    }
+
+    public List<SeatMap.Row> getRows() {
+        return rows;
+    }
+
+    public int rowCount() {
+        return rows.size();
+    }
+
+    public int rowOf(int position) {
+        return rowOf[position];
+    }
+
+    public int rowStart(int row) {
+        return rows.get(row).getFirstPosition();
+    }
+
+    public int rowSize(int row) {
+        return rows.get(row).getSeatIds().size();
+    }
+
+    // First position of the segment containing the given position
+    public int segmentStart(int position) {
+        return segmentStart[position];
+    }
+
+    // Position just past the end of the segment containing the given position
+    public int segmentEnd(int position) {
+        return segmentEnd[position];
+    }
+
+    public long seatIdAt(int position) {
+        return seatIds[position];
+    }
+
+    public String rowAt(int position) {
+        return rows.get(rowOf[position]).getRow();
+    }
+
+    public int numberAt(int position) {
+        return numbers[position];
+    }
+
+    public Seat.Category categoryAt(int position) {
+        return categoryOf[position];
+    }
+
+    // Base64 bitset of the positions in each category other than STANDARD, as sent with seat maps
+    public Map<Seat.Category, String> getCategories() {
+        return categories;
+    }
+
+    // Returns -1 when the seat does not belong to this screen
+    public int positionOf(Long seatId) {
+        Integer position = positions.get(seatId);
+        return position == null ? -1 : position;
+    }
+
+    private static Map<Seat.Category, String> encodeCategories(Seat.Category[] categoryOf) {
+        Map<Seat.Category, BitSet> bits = new EnumMap<>(Seat.Category.class);
+        for (int i = 0; i < categoryOf.length; i++) {
+            if (categoryOf[i] != Seat.Category.STANDARD) {
+                bits.computeIfAbsent(categoryOf[i], category -> new BitSet(categoryOf.length)).set(i);
+            }
+        }
+        Map<Seat.Category, String> encoded = new EnumMap<>(Seat.Category.class);
+        bits.forEach((category, set) -> encoded.put(category, Base64.getEncoder().encodeToString(set.toByteArray())));
+        return Collections.unmodifiableMap(encoded);
+    }
+}
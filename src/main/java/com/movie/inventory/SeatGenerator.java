@@ -0,0 +1,76 @@
+package com.movie.inventory;
+
+import com.movie.dto.LayoutTemplate;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Expands a {@link LayoutTemplate} into the seats of a screen, in the row and number order
+ * {@link ScreenLayout} expects, so a layout can be built from them without reading them back.
+ */
+public final class SeatGenerator {
+
+    public static final int MAX_ROWS = 26;
+    public static final int MAX_SEATS_PER_ROW = 200;
+
+    private SeatGenerator() {
+    }
+
+    public static List<Seat> generate(LayoutTemplate template, Screen screen) {
+        if (template == null) {
+            throw new IllegalArgumentException("A layout is required");
+        }
+        if (template.getRows() < 1 || template.getRows() > MAX_ROWS) {
+            throw new IllegalArgumentException("Rows must be between 1 and " + MAX_ROWS);
+        }
+        int seatsPerRow = template.getSeatsPerRow();
+        if (seatsPerRow < 1 || seatsPerRow > MAX_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("Seats per row must be between 1 and " + MAX_SEATS_PER_ROW);
+        }
+        Set<Integer> aisles = new TreeSet<>();
+        if (template.getAisles() != null) {
+            for (Integer aisle : template.getAisles()) {
+                if (aisle == null || aisle < 1 || aisle >= seatsPerRow || !aisles.add(aisle)) {
+                    throw new IllegalArgumentException("Invalid aisle " + aisle);
+                }
+            }
+        }
+        Map<String, Seat.Category> categories = template.getCategories() == null
+                ? Map.of()
+                : new HashMap<>(template.getCategories());
+
+        List<Seat> seats = new ArrayList<>(template.getRows() * seatsPerRow);
+        Set<String> labels = new HashSet<>();
+        for (int r = 0; r < template.getRows(); r++) {
+            String row = String.valueOf((char) ('A' + r));
+            labels.add(row);
+            int number = 0;
+            for (int i = 1; i <= seatsPerRow; i++) {
+                number++;
+                String label = row + number;
+                labels.add(label);
+                Seat.Category category = categories.getOrDefault(label,
+                        categories.getOrDefault(row, Seat.Category.STANDARD));
+                seats.add(new Seat(null, row, number, category == null ? Seat.Category.STANDARD : category,
+                        screen, null));
+                if (aisles.contains(i)) {
+                    number++;
+                }
+            }
+        }
+        for (String key : categories.keySet()) {
+            if (!labels.contains(key)) {
+                throw new IllegalArgumentException("Unknown row or seat " + key);
+            }
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,147 @@
+package com.movie.inventory;
+
+import com.movie.model.Booking;
+import com.movie.model.Seat;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.ShowtimeSeatRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Expires seat holds of PENDING bookings. Each hold sits in a delay queue until its expiry time,
+ * when the booking is cancelled and its seats go straight back into the inventory. A hold that fails to expire,
+ * e.g. on a database error, goes back into the queue and is tried again after a growing delay.
+ */
+@Component
+public class SeatHoldExpiry {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatHoldExpiry.class);
+    // Delay before the first retry of a failed expiry (ms), doubled on every further failure up to the maximum
+    private static final long RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 60_000;
+
+    private final BookingRepository bookingRepository;
+    private final ShowtimeSeatRepository showtimeSeatRepository;
+    private final SeatInventory seatInventory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Hold> holds = new DelayQueue<>();
+    private final Thread worker = new Thread(this::run, "seat-hold-expiry");
+
+    @Autowired
+    public SeatHoldExpiry(BookingRepository bookingRepository, ShowtimeSeatRepository showtimeSeatRepository,
+                          SeatInventory seatInventory, PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.showtimeSeatRepository = showtimeSeatRepository;
+        this.seatInventory = seatInventory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.interrupt();
+    }
+
+    // Holds left over from a previous run are picked up once at startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePendingHolds() {
+        for (Booking booking : bookingRepository.findPendingWithSeats()) {
+            schedule(booking);
+        }
+    }
+
+    public void schedule(Booking booking) {
+        List<Long> seatIds = booking.getSeats().stream().map(Seat::getId).collect(Collectors.toList());
+        long expiresAt = booking.getHoldExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        holds.put(new Hold(booking.getId(), booking.getShowtime().getId(), seatIds, expiresAt, 0));
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Hold hold;
+            try {
+                hold = holds.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                expire(hold);
+            } catch (RuntimeException e) {
+                Hold retry = hold.retry();
+                log.warn("Failed to expire seat hold of booking {}, retrying in {} ms",
+                        hold.bookingId, retry.expiresAt - System.currentTimeMillis(), e);
+                holds.put(retry);
+            }
+        }
+    }
+
+    private void expire(Hold hold) {
+        // Only a booking that is still pending is cancelled; a confirmed one keeps its seats
+        Boolean expired = transactionTemplate.execute(status -> {
+            if (bookingRepository.expireHold(hold.bookingId, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            showtimeSeatRepository.deleteByBookingId(hold.bookingId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(expired)) {
+            seatInventory.release(hold.showtimeId, hold.seatIds);
+        }
+    }
+
+    private static final class Hold implements Delayed {
+
+        private final Long bookingId;
+        private final Long showtimeId;
+        private final List<Long> seatIds;
+        private final long expiresAt;
+        private final int failures;
+
+        private Hold(Long bookingId, Long showtimeId, List<Long> seatIds, long expiresAt, int failures) {
+            this.bookingId = bookingId;
+            this.showtimeId = showtimeId;
+            this.seatIds = seatIds;
+            this.expiresAt = expiresAt;
+            this.failures = failures;
+        }
+
+        // The same hold, due again once the backoff for one more failure has passed
+        private Hold retry() {
+            long delay = Math.min(RETRY_DELAY << Math.min(failures, 16), MAX_RETRY_DELAY);
+            return new Hold(bookingId, showtimeId, seatIds, System.currentTimeMillis() + delay, failures + 1);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAt, ((Hold) other).expiresAt);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.movie.inventory;
+
+import com.movie.dto.Occupancy;
+import com.movie.dto.SeatDelta;
+import com.movie.model.Showtime;
+import com.movie.model.ShowtimeSeat;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.ShowtimeSeatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory seat occupancy per showtime. Each showtime is loaded from the database the first
+ * time it is needed and is then kept up to date by the booking service.
+ * Showtimes share a fixed set of lock stripes, so reservations for different showtimes rarely contend.
+ */
+@Component
+public class SeatInventory {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final SeatRepository seatRepository;
+    private final ShowtimeSeatRepository showtimeSeatRepository;
+    private final ShowtimeRepository showtimeRepository;
+
+    private final Map<Long, ScreenLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<Long, ShowtimeSeats> showtimes = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[LOCK_STRIPES];
+    // Seeded from the clock so versions handed out as ETags keep increasing across restarts
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final List<Consumer<SeatDelta>> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public SeatInventory(SeatRepository seatRepository, ShowtimeSeatRepository showtimeSeatRepository,
+                         ShowtimeRepository showtimeRepository) {
+        this.seatRepository = seatRepository;
+        this.showtimeSeatRepository = showtimeSeatRepository;
+        this.showtimeRepository = showtimeRepository;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ShowtimeSeats get(Showtime showtime) {
+        return get(showtime.getId(), showtime.getScreen().getId());
+    }
+
+    // For callers that know the showtime's screen without having loaded the showtime
+    public ShowtimeSeats get(Long showtimeId, Long screenId) {
+        return showtimes.computeIfAbsent(showtimeId, id -> load(id, screenId));
+    }
+
+    // Listeners are called while the showtime's lock is held and must only hand the delta off
+    public void addListener(Consumer<SeatDelta> listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<ShowtimeSeats> getIfLoaded(Long showtimeId) {
+        return Optional.ofNullable(showtimes.get(showtimeId));
+    }
+
+    public ScreenLayout getLayout(Long screenId) {
+        return layouts.computeIfAbsent(screenId,
+                id -> new ScreenLayout(id, seatRepository.findByScreenIdOrderByRowAscNumberAsc(id)));
+    }
+
+    /**
+     * Seat counts of the given showtimes, in the order given; unknown ids are left out. Loaded showtimes
+     * answer from their live counters; the others are counted from the seat ledger with two grouped
+     * queries for the whole batch, without being loaded.
+     */
+    public Map<Long, Occupancy> getOccupancy(Collection<Long> showtimeIds) {
+        Map<Long, Occupancy> occupancy = new LinkedHashMap<>();
+        List<Long> notLoaded = new ArrayList<>();
+        for (Long showtimeId : showtimeIds) {
+            ShowtimeSeats seats = showtimes.get(showtimeId);
+            if (seats != null) {
+                occupancy.put(showtimeId, seats.getOccupancy());
+            } else {
+                occupancy.put(showtimeId, null);
+                notLoaded.add(showtimeId);
+            }
+        }
+        if (!notLoaded.isEmpty()) {
+            Map<Long, Occupancy> counted = countOccupancy(notLoaded);
+            notLoaded.forEach(showtimeId -> occupancy.put(showtimeId, counted.get(showtimeId)));
+            occupancy.values().removeIf(Objects::isNull);
+        }
+        return occupancy;
+    }
+
+    public void release(Long showtimeId, Collection<Long> seatIds) {
+        ShowtimeSeats seats = showtimes.get(showtimeId);
+        if (seats != null) {
+            seats.release(seatIds);
+        }
+    }
+
+    // Drops cached state so it is reloaded on next access, e.g. after the screen's seats change
+    public void evictShowtime(Long showtimeId) {
+        showtimes.remove(showtimeId);
+    }
+
+    // Installs a layout built from seats just written, so the screen is not read back; its showtimes are reloaded
+    public void replaceLayout(ScreenLayout layout) {
+        layouts.put(layout.getScreenId(), layout);
+        showtimes.values().removeIf(seats -> seats.getLayout().getScreenId().equals(layout.getScreenId()));
+    }
+
+    public void evictScreen(Long screenId) {
+        layouts.remove(screenId);
+        showtimes.values().removeIf(seats -> seats.getLayout().getScreenId().equals(screenId));
+    }
+
+    private ShowtimeSeats load(Long showtimeId, Long screenId) {
+        // Expired holds still in the ledger are released by the hold expiry shortly after
+        List<Long> booked = new ArrayList<>();
+        List<Long> held = new ArrayList<>();
+        for (ShowtimeSeatRepository.SeatState seat : showtimeSeatRepository.findStatesByShowtimeId(showtimeId)) {
+            (seat.getState() == ShowtimeSeat.State.BOOKED ? booked : held).add(seat.getSeatId());
+        }
+        return new ShowtimeSeats(showtimeId, getLayout(screenId), booked, held,
+                stripeFor(showtimeId), versions, this::publish);
+    }
+
+    private Map<Long, Occupancy> countOccupancy(List<Long> showtimeIds) {
+        Map<Long, Occupancy> counted = new HashMap<>();
+        for (ShowtimeRepository.Capacity capacity : showtimeRepository.findCapacitiesByIds(showtimeIds)) {
+            int seats = (int) capacity.getSeats();
+            counted.put(capacity.getShowtimeId(), new Occupancy(capacity.getShowtimeId(), seats, 0, 0, seats));
+        }
+        for (ShowtimeSeatRepository.StateCount count : showtimeSeatRepository.countByShowtimeIds(showtimeIds)) {
+            Occupancy occupancy = counted.get(count.getShowtimeId());
+            if (count.getState() == ShowtimeSeat.State.BOOKED) {
+                occupancy.setSold((int) count.getSeats());
+            } else {
+                occupancy.setHeld((int) count.getSeats());
+            }
+            occupancy.setFree(occupancy.getCapacity() - occupancy.getSold() - occupancy.getHeld());
+        }
+        return counted;
+    }
+
+    private void publish(SeatDelta delta) {
+        for (Consumer<SeatDelta> listener : listeners) {
+            listener.accept(delta);
+        }
+    }
+
+    private Lock stripeFor(Long showtimeId) {
+        return stripes[Long.hashCode(showtimeId) & (LOCK_STRIPES - 1)];
+    }
+}
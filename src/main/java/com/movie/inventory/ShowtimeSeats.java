@@ -0,0 +1,296 @@
+package com.movie.inventory;
+
+import com.movie.dto.Occupancy;
+import com.movie.dto.SeatDelta;
+import com.movie.dto.SeatMap;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Occupancy of a single showtime: one bit per seat position of the screen layout for booked seats
+ * and one for seats held by a pending booking. All access goes through the lock stripe the inventory
+ * assigned to this showtime. Every change takes a new version from the inventory-wide counter and is
+ * reported as a {@link SeatDelta} while the lock is still held, so deltas arrive in version order.
+ */
+public class ShowtimeSeats {
+
+    private final Long showtimeId;
+    private final ScreenLayout layout;
+    private final BitSet booked;
+    private final BitSet held;
+    private FreeRuns freeRuns;
+    private final Lock lock;
+    private final AtomicLong versions;
+    private final Consumer<SeatDelta> changes;
+    private volatile long version;
+    private volatile SeatMap seatMap;
+    // Counts of the set bits, kept up to date seat by seat under the lock
+    private int bookedCount;
+    private int heldCount;
+    private volatile Occupancy occupancy;
+
+    public ShowtimeSeats(Long showtimeId, ScreenLayout layout, Collection<Long> bookedSeatIds,
+                         Collection<Long> heldSeatIds, Lock lock, AtomicLong versions,
+                         Consumer<SeatDelta> changes) {
+        this.showtimeId = showtimeId;
+        this.layout = layout;
+        this.booked = new BitSet(layout.size());
+        this.held = new BitSet(layout.size());
+        this.lock = lock;
+        this.versions = versions;
+        this.changes = changes;
+        this.version = versions.incrementAndGet();
+        setAll(booked, bookedSeatIds);
+        setAll(held, heldSeatIds);
+        BitSet occupied = (BitSet) booked.clone();
+        occupied.or(held);
+        this.freeRuns = new FreeRuns(layout, occupied);
+        this.bookedCount = booked.cardinality();
+        this.heldCount = held.cardinality();
+        this.occupancy = occupancy();
+    }
+
+    public Long getShowtimeId() {
+        return showtimeId;
+    }
+
+    public ScreenLayout getLayout() {
+        return layout;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Built at most once per version, so repeated polls of an unchanged showtime cost nothing
+    public SeatMap getSeatMap() {
+        SeatMap current = seatMap;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        BitSet bookedCopy;
+        BitSet heldCopy;
+        long snapshotVersion;
+        lock.lock();
+        try {
+            bookedCopy = (BitSet) booked.clone();
+            heldCopy = (BitSet) held.clone();
+            snapshotVersion = version;
+        } finally {
+            lock.unlock();
+        }
+        current = SeatMap.builder()
+                .showtimeId(showtimeId)
+                .screenId(layout.getScreenId())
+                .version(snapshotVersion)
+                .rows(layout.getRows())
+                .booked(Base64.getEncoder().encodeToString(bookedCopy.toByteArray()))
+                .held(Base64.getEncoder().encodeToString(heldCopy.toByteArray()))
+                .categories(layout.getCategories())
+                .build();
+        seatMap = current;
+        return current;
+    }
+
+    // Replaced on every change, so reading it never takes the lock
+    public Occupancy getOccupancy() {
+        return occupancy;
+    }
+
+    public boolean isAvailable(Long seatId) {
+        int position = layout.positionOf(seatId);
+        if (position < 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return !booked.get(position) && !held.get(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Books all of the given seats, or none of them if any is unknown or already taken
+    public boolean tryReserve(Collection<Long> seatIds) {
+        return tryClaim(seatIds, booked, SeatDelta.Type.BOOKED);
+    }
+
+    // Holds all of the given seats for a pending booking, or none of them
+    public boolean tryHold(Collection<Long> seatIds) {
+        return tryClaim(seatIds, held, SeatDelta.Type.HELD);
+    }
+
+    // Turns held seats into booked ones; fails if any of them is no longer held
+    public boolean confirmHold(Collection<Long> seatIds) {
+        return move(seatIds, held, booked, SeatDelta.Type.BOOKED);
+    }
+
+    public void revertConfirm(Collection<Long> seatIds) {
+        move(seatIds, booked, held, SeatDelta.Type.HELD);
+    }
+
+    public void release(Collection<Long> seatIds) {
+        lock.lock();
+        try {
+            for (Long seatId : seatIds) {
+                int position = layout.positionOf(seatId);
+                if (position >= 0 && (booked.get(position) || held.get(position))) {
+                    clear(booked, position);
+                    clear(held, position);
+                    freeRuns.free(position);
+                }
+            }
+            changed(SeatDelta.Type.RELEASED, seatIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Books (or holds) the best block of {@code count} free seats next to each other in one row, as
+     * ranked by {@link FreeRuns#findBest}. Returns the seat ids taken, or an empty list if no block fits.
+     */
+    public List<Long> tryReserveBest(int count, boolean hold) {
+        if (count <= 0) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            int start = freeRuns.findBest(count);
+            if (start < 0) {
+                return List.of();
+            }
+            BitSet target = hold ? held : booked;
+            List<Long> seatIds = new ArrayList<>(count);
+            for (int position = start; position < start + count; position++) {
+                set(target, position);
+                freeRuns.occupy(position);
+                seatIds.add(layout.seatIdAt(position));
+            }
+            changed(hold ? SeatDelta.Type.HELD : SeatDelta.Type.BOOKED, seatIds);
+            return seatIds;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Copy of the occupied (booked or held) bits, safe to read without holding the lock
+    public BitSet snapshot() {
+        lock.lock();
+        try {
+            BitSet occupied = (BitSet) booked.clone();
+            occupied.or(held);
+            return occupied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryClaim(Collection<Long> seatIds, BitSet target, SeatDelta.Type type) {
+        int[] positions = positionsOf(seatIds);
+        if (positions == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (int position : positions) {
+                if (booked.get(position) || held.get(position)) {
+                    return false;
+                }
+            }
+            for (int position : positions) {
+                set(target, position);
+                freeRuns.occupy(position);
+            }
+            changed(type, seatIds);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean move(Collection<Long> seatIds, BitSet from, BitSet to, SeatDelta.Type type) {
+        int[] positions = positionsOf(seatIds);
+        if (positions == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (int position : positions) {
+                if (!from.get(position)) {
+                    return false;
+                }
+            }
+            for (int position : positions) {
+                clear(from, position);
+                set(to, position);
+            }
+            changed(type, seatIds);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void changed(SeatDelta.Type type, Collection<Long> seatIds) {
+        version = versions.incrementAndGet();
+        occupancy = occupancy();
+        changes.accept(new SeatDelta(showtimeId, version, type, List.copyOf(seatIds)));
+    }
+
+    private void set(BitSet bits, int position) {
+        if (!bits.get(position)) {
+            bits.set(position);
+            count(bits, 1);
+        }
+    }
+
+    private void clear(BitSet bits, int position) {
+        if (bits.get(position)) {
+            bits.clear(position);
+            count(bits, -1);
+        }
+    }
+
+    private void count(BitSet bits, int delta) {
+        if (bits == booked) {
+            bookedCount += delta;
+        } else {
+            heldCount += delta;
+        }
+    }
+
+    private Occupancy occupancy() {
+        return new Occupancy(showtimeId, layout.size(), bookedCount, heldCount, layout.size() - bookedCount - heldCount);
+    }
+
+    private void setAll(BitSet bits, Collection<Long> seatIds) {
+        for (Long seatId : seatIds) {
+            int position = layout.positionOf(seatId);
+            if (position >= 0) {
+                bits.set(position);
+            }
+        }
+    }
+
+    private int[] positionsOf(Collection<Long> seatIds) {
+        int[] positions = new int[seatIds.size()];
+        int i = 0;
+        for (Long seatId : seatIds) {
+            int position = layout.positionOf(seatId);
+            if (position < 0) {
+                return null;
+            }
+            positions[i++] = position;
+        }
+        return positions;
+    }
+}
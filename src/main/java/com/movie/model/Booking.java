@@ -3,7 +3,9 @@ package com.movie.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.util.Set;
 
@@ -14,16 +16,22 @@ import java.util.Set;
 @AllArgsConstructor
 public class Booking {
 
+    // Pooled sequence ids let Hibernate batch booking inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private User user;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "showtime_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Showtime showtime;
 
     @ManyToMany
@@ -32,6 +40,8 @@ public class Booking {
         joinColumns = @JoinColumn(name = "booking_id"),
         inverseJoinColumns = @JoinColumn(name = "seat_id")
     )
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Seat> seats;
 
     @Column(nullable = false)
@@ -41,6 +51,9 @@ public class Booking {
     @Column(nullable = false)
     private BookingStatus status;
 
+    // Set while the booking is PENDING; the seats are released once this time has passed
+    private LocalDateTime holdExpiresAt;
+
     public enum BookingStatus {
         PENDING, CONFIRMED, CANCELLED
     }
@@ -1,9 +1,12 @@
 package com.movie.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.util.List;
 
 @Entity
@@ -14,7 +17,8 @@ import java.util.List;
 public class Screen {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "screen_seq")
+    @SequenceGenerator(name = "screen_seq", sequenceName = "screens_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,11 +26,18 @@ public class Screen {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "theater_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Theater theater;
 
     @OneToMany(mappedBy = "screen", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Seat> seats;
 
     @OneToMany(mappedBy = "screen", cascade = CascadeType.ALL)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Showtime> showtimes;
 }
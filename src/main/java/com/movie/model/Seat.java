@@ -1,9 +1,12 @@
 package com.movie.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.util.Set;
 
 @Entity
@@ -14,19 +17,37 @@ import java.util.Set;
 public class Seat {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seat_seq")
+    @SequenceGenerator(name = "seat_seq", sequenceName = "seats_seq", allocationSize = 1000)
     private Long id;
 
-    @Column(nullable = false)
+    @Column(name = "seat_row", nullable = false) // ROW is a reserved word in H2
     private String row;
 
     @Column(nullable = false)
     private Integer number;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Category category = Category.STANDARD;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "screen_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Screen screen;
 
     @ManyToMany(mappedBy = "seats")
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Booking> bookings;
+
+    public Seat(Long id, String row, Integer number, Screen screen, Set<Booking> bookings) {
+        this(id, row, number, Category.STANDARD, screen, bookings);
+    }
+
+    public enum Category {
+        STANDARD, PREMIUM, ACCESSIBLE
+    }
 }
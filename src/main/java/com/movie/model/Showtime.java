@@ -1,30 +1,39 @@
 package com.movie.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "showtimes")
+// Showtime listings page through showtimes by start time
+@Table(name = "showtimes", indexes = @Index(name = "idx_showtime_start", columnList = "start_time, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Showtime {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "showtime_seq")
+    @SequenceGenerator(name = "showtime_seq", sequenceName = "showtimes_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "movie_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Movie movie;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "screen_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Screen screen;
 
     @Column(nullable = false)
@@ -37,5 +46,8 @@ public class Showtime {
     private BigDecimal price;
 
     @OneToMany(mappedBy = "showtime", cascade = CascadeType.ALL)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Booking> bookings;
 }
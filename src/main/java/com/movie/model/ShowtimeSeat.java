@@ -0,0 +1,62 @@
+package com.movie.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Ledger of taken seats: one row per seat of a showtime that is held or booked. The unique index on
+ * (showtime, seat) is what guarantees a seat is never sold twice, even across application nodes.
+ * Rows are written with their booking and removed when it is cancelled or its hold expires.
+ */
+@Entity
+@Table(name = "showtime_seat",
+        uniqueConstraints = @UniqueConstraint(name = "uk_showtime_seat", columnNames = {"showtime_id", "seat_id"}),
+        indexes = @Index(name = "idx_showtime_seat_booking", columnList = "booking_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimeSeat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "showtime_seat_seq")
+    @SequenceGenerator(name = "showtime_seat_seq", sequenceName = "showtime_seat_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "showtime_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Showtime showtime;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seat_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Seat seat;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Booking booking;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private State state;
+
+    public static ShowtimeSeat of(Booking booking, Seat seat) {
+        State state = booking.getStatus() == Booking.BookingStatus.PENDING ? State.HELD : State.BOOKED;
+        return new ShowtimeSeat(null, booking.getShowtime(), seat, booking, state);
+    }
+
+    public enum State {
+        HELD, BOOKED
+    }
+}
@@ -1,9 +1,12 @@
 package com.movie.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.util.List;
 
 @Entity
@@ -14,7 +17,8 @@ import java.util.List;
 public class Theater {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "theater_seq")
+    @SequenceGenerator(name = "theater_seq", sequenceName = "theaters_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,6 +26,10 @@ public class Theater {
 
     private String location;
 
+    // Screens point back to their theater; theaters are also cached outside of any session
     @OneToMany(mappedBy = "theater", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Screen> screens;
 }
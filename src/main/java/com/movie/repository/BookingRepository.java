@@ -1,20 +1,90 @@
 package com.movie.repository;
 
+import com.movie.dto.BookingView;
 import com.movie.model.Booking;
 import com.movie.model.Showtime;
 import com.movie.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+
+    String VIEW = "SELECT new com.movie.dto.BookingView(b.id, b.user.id, b.showtime.id, b.bookingTime, b.status, " +
+            "b.holdExpiresAt) FROM Booking b ";
+
     List<Booking> findByUser(User user);
     List<Booking> findByShowtime(Showtime showtime);
     List<Booking> findByUserAndStatus(User user, Booking.BookingStatus status);
+    boolean existsByIdAndUserUsername(Long id, String username);
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query(VIEW + "WHERE b.id = :id")
+    Optional<BookingView> findViewById(Long id);
+
+    @Query(VIEW + "WHERE b.user.username = :username ORDER BY b.id")
+    List<BookingView> findViewsByUsername(String username);
+
+    @Query(VIEW + "WHERE b.id > :afterId ORDER BY b.id")
+    List<BookingView> findViewsAfter(Long afterId, Pageable pageable);
+
+    @Query("SELECT b.id AS bookingId, s.id AS id, s.row AS row, s.number AS number FROM Booking b JOIN b.seats s " +
+            "WHERE b.id IN :bookingIds ORDER BY s.id")
+    List<BookedSeat> findSeatsByBookingIds(Collection<Long> bookingIds);
+
+    // Read through an open cursor, one row per booking; the caller has to close the stream and detach what it has read
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b FROM Booking b ORDER BY b.id")
+    Stream<Booking> streamAll();
+
+    // Fills in the seats of bookings already in the persistence context
+    @Query("SELECT DISTINCT b FROM Booking b LEFT JOIN FETCH b.seats WHERE b.id IN :ids")
+    List<Booking> fetchSeats(Collection<Long> ids);
 
     @Query("SELECT b FROM Booking b WHERE b.showtime.id = :showtimeId AND b.status = 'CONFIRMED'")
     List<Booking> findConfirmedBookingsByShowtimeId(Long showtimeId);
+
+    @Query("SELECT s.id FROM Booking b JOIN b.seats s WHERE b.showtime.id = :showtimeId AND b.status = 'CONFIRMED'")
+    List<Long> findConfirmedSeatIdsByShowtimeId(Long showtimeId);
+
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.seats WHERE b.status = 'PENDING'")
+    List<Booking> findPendingWithSeats();
+
+    @Query("SELECT b.id FROM Booking b WHERE b.showtime.id IN :showtimeIds AND b.status <> 'CANCELLED' AND b.id > :afterId ORDER BY b.id")
+    List<Long> findActiveIdsByShowtimeIds(Collection<Long> showtimeIds, Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED' WHERE b.id IN :ids AND b.status <> 'CANCELLED'")
+    int cancelAllById(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CONFIRMED' WHERE b.id = :id AND b.status = 'PENDING' AND b.holdExpiresAt > :now")
+    int confirmHold(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED' WHERE b.id = :id AND b.status = 'PENDING'")
+    int cancelHold(Long id);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED' WHERE b.id = :id AND b.status = 'PENDING' AND b.holdExpiresAt <= :now")
+    int expireHold(Long id, LocalDateTime now);
+
+    interface BookedSeat {
+        Long getBookingId();
+        Long getId();
+        String getRow();
+        Integer getNumber();
+    }
 }
@@ -1,6 +1,7 @@
 package com.movie.repository;
 
 import com.movie.model.Movie;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,5 @@ import java.util.List;
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     List<Movie> findByGenre(String genre);
     List<Movie> findByTitleContainingIgnoreCase(String title);
+    List<Movie> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
 }
@@ -3,12 +3,29 @@ package com.movie.repository;
 import com.movie.model.Screen;
 import com.movie.model.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SeatRepository extends JpaRepository<Seat, Long> {
     List<Seat> findByScreen(Screen screen);
     List<Seat> findByScreenAndRowOrderByNumber(Screen screen, String row);
+    List<Seat> findByScreenIdOrderByRowAscNumberAsc(Long screenId);
+
+    // Only the given seats that are on the showtime's screen; none at all if there is no such showtime
+    @Query("SELECT s FROM Seat s, Showtime sh WHERE sh.id = :showtimeId AND s.screen = sh.screen AND s.id IN :seatIds")
+    List<Seat> findByIdInForShowtime(Collection<Long> seatIds, Long showtimeId);
+
+    // Any booking, cancelled ones included, still references its seats
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b JOIN b.seats s " +
+            "WHERE s.screen.id = :screenId")
+    boolean existsBookingOnScreen(Long screenId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Seat s WHERE s.screen.id = :screenId")
+    int deleteByScreenId(Long screenId);
 }
@@ -1,18 +1,86 @@
 package com.movie.repository;
 
+import com.movie.dto.ShowtimeView;
 import com.movie.model.Movie;
 import com.movie.model.Screen;
 import com.movie.model.Showtime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
+
+    String VIEW = "SELECT new com.movie.dto.ShowtimeView(s.id, m.id, m.title, sc.id, sc.name, t.id, t.name, " +
+            "s.startTime, s.endTime, s.price) FROM Showtime s JOIN s.movie m JOIN s.screen sc JOIN sc.theater t ";
+
     List<Showtime> findByMovie(Movie movie);
     List<Showtime> findByScreen(Screen screen);
     List<Showtime> findByStartTimeAfterAndStartTimeBefore(LocalDateTime startDate, LocalDateTime endDate);
     List<Showtime> findByMovieAndStartTimeAfter(Movie movie, LocalDateTime startDate);
+
+    @Query(VIEW + "WHERE s.id = :id")
+    Optional<ShowtimeView> findViewById(Long id);
+
+    @Query(VIEW + "WHERE s.id IN :ids")
+    List<ShowtimeView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query(VIEW + "WHERE m.id = :movieId ORDER BY s.startTime, s.id")
+    List<ShowtimeView> findViewsByMovieId(Long movieId);
+
+    @Query(VIEW + "WHERE m.id = :movieId AND s.startTime > :from ORDER BY s.startTime, s.id")
+    List<ShowtimeView> findViewsByMovieIdStartingAfter(Long movieId, LocalDateTime from);
+
+    @Query(VIEW + "WHERE s.startTime > :from AND s.startTime < :to ORDER BY s.startTime, s.id")
+    List<ShowtimeView> findViewsStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    @Query(VIEW + "WHERE s.startTime >= :from")
+    List<ShowtimeView> findViewsStartingFrom(LocalDateTime from);
+
+    @Query(VIEW + "ORDER BY s.startTime, s.id")
+    List<ShowtimeView> findViewsOrderByStartTime(Pageable pageable);
+
+    @Query(VIEW + "WHERE s.startTime > :afterTime OR (s.startTime = :afterTime AND s.id > :afterId) ORDER BY s.startTime, s.id")
+    List<ShowtimeView> findViewsAfter(LocalDateTime afterTime, Long afterId, Pageable pageable);
+
+    String WITH_DETAILS = "SELECT s FROM Showtime s JOIN FETCH s.movie JOIN FETCH s.screen sc JOIN FETCH sc.theater ";
+
+    @Query(WITH_DETAILS + "WHERE s.startTime >= :from AND s.startTime < :to")
+    List<Showtime> findWithDetailsStartingInRange(LocalDateTime from, LocalDateTime to);
+
+    @Query(WITH_DETAILS + "WHERE s.id IN :ids")
+    List<Showtime> findWithDetailsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT s.id FROM Showtime s WHERE s.screen.id = :screenId AND s.startTime >= :from AND s.startTime < :to")
+    List<Long> findIdsByScreenIdAndStartTimeInRange(Long screenId, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT s.id FROM Showtime s WHERE s.screen.id = :screenId")
+    List<Long> findIdsByScreenId(Long screenId);
+
+    @Query("SELECT s.id FROM Showtime s WHERE s.screen.theater.id = :theaterId")
+    List<Long> findIdsByTheaterId(Long theaterId);
+
+    @Query("SELECT sh.id AS showtimeId, COUNT(s) AS seats FROM Showtime sh JOIN sh.screen sc LEFT JOIN sc.seats s " +
+            "WHERE sh.id IN :showtimeIds GROUP BY sh.id")
+    List<Capacity> findCapacitiesByIds(Collection<Long> showtimeIds);
+
+    @Query("SELECT s.id AS id, s.startTime AS startTime, s.endTime AS endTime FROM Showtime s WHERE s.screen.id = :screenId")
+    List<TimeSlot> findTimeSlotsByScreenId(Long screenId);
+
+    interface Capacity {
+        Long getShowtimeId();
+        long getSeats();
+    }
+
+    interface TimeSlot {
+        Long getId();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+    }
 }
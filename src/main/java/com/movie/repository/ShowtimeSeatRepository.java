@@ -0,0 +1,53 @@
+package com.movie.repository;
+
+import com.movie.model.ShowtimeSeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ShowtimeSeatRepository extends JpaRepository<ShowtimeSeat, Long> {
+
+    @Query("SELECT ss.seat.id AS seatId, ss.state AS state FROM ShowtimeSeat ss WHERE ss.showtime.id = :showtimeId")
+    List<SeatState> findStatesByShowtimeId(Long showtimeId);
+
+    @Query("SELECT ss.showtime.id AS showtimeId, ss.state AS state, COUNT(ss) AS seats FROM ShowtimeSeat ss " +
+            "WHERE ss.showtime.id IN :showtimeIds GROUP BY ss.showtime.id, ss.state")
+    List<StateCount> countByShowtimeIds(Collection<Long> showtimeIds);
+
+    @Query("SELECT ss.showtime.id AS showtimeId, ss.seat.id AS seatId FROM ShowtimeSeat ss " +
+            "WHERE ss.booking.id IN :bookingIds")
+    List<BookedSeat> findSeatsByBookingIds(Collection<Long> bookingIds);
+
+    @Modifying
+    @Query("UPDATE ShowtimeSeat ss SET ss.state = 'BOOKED' WHERE ss.booking.id = :bookingId")
+    int markBooked(Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM ShowtimeSeat ss WHERE ss.booking.id = :bookingId")
+    int deleteByBookingId(Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM ShowtimeSeat ss WHERE ss.booking.id IN :bookingIds")
+    int deleteByBookingIds(Collection<Long> bookingIds);
+
+    interface SeatState {
+        Long getSeatId();
+        ShowtimeSeat.State getState();
+    }
+
+    interface BookedSeat {
+        Long getShowtimeId();
+        Long getSeatId();
+    }
+
+    interface StateCount {
+        Long getShowtimeId();
+        ShowtimeSeat.State getState();
+        long getSeats();
+    }
+}
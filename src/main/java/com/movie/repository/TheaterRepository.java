@@ -1,6 +1,7 @@
 package com.movie.repository;
 
 import com.movie.model.Theater;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,5 @@ import java.util.List;
 @Repository
 public interface TheaterRepository extends JpaRepository<Theater, Long> {
     List<Theater> findByLocationContainingIgnoreCase(String location);
+    List<Theater> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
 }
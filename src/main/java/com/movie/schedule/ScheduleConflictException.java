@@ -0,0 +1,22 @@
+package com.movie.schedule;
+
+import com.movie.dto.ScheduleConflict;
+
+import java.util.List;
+
+/**
+ * Thrown when showtimes would overlap on a screen; carries every conflict found.
+ */
+public class ScheduleConflictException extends IllegalArgumentException {
+
+    private final List<ScheduleConflict> conflicts;
+
+    public ScheduleConflictException(List<ScheduleConflict> conflicts) {
+        super(conflicts.get(0).getReason());
+        this.conflicts = conflicts;
+    }
+
+    public List<ScheduleConflict> getConflicts() {
+        return conflicts;
+    }
+}
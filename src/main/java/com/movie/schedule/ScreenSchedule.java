@@ -0,0 +1,245 @@
+package com.movie.schedule;
+
+import com.movie.dto.ScheduleConflict;
+import com.movie.model.Showtime;
+import com.movie.repository.ShowtimeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Showtimes of each screen as time slots sorted by start, used to keep showtimes on a screen from overlapping,
+ * with a cleaning buffer between one showtime's end and the next one's start. Slots on a screen never overlap,
+ * so the slot starting last before a new one ends is the only one it can collide with: a check is a single
+ * O(log n) lookup. Each screen is loaded the first time it is needed and then kept current by showtime writes.
+ */
+@Component
+public class ScreenSchedule {
+
+    private static final Comparator<Slot> BY_START = Comparator.comparing((Slot slot) -> slot.start)
+            .thenComparingLong(slot -> slot.showtimeId);
+
+    private final ShowtimeRepository showtimeRepository;
+
+    private final Map<Long, TreeSet<Slot>> screens = new ConcurrentHashMap<>();
+    // Slots of the loaded screens by showtime, to find a showtime's slot when it moves or is deleted
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    @Value("${showtime.cleaning-buffer}")
+    private long cleaningBuffer;
+
+    @Autowired
+    public ScreenSchedule(ShowtimeRepository showtimeRepository) {
+        this.showtimeRepository = showtimeRepository;
+    }
+
+    /**
+     * Takes the showtime's slot on its screen, replacing the slot it had before, or throws a
+     * {@link ScheduleConflictException} if another showtime is in the way. Inside a transaction the
+     * change is undone if the transaction rolls back.
+     */
+    public void reserve(Showtime showtime) {
+        Slot slot = new Slot(showtime.getId(), showtime.getScreen().getId(), showtime.getStartTime(), showtime.getEndTime());
+        Slot previous = slots.get(slot.showtimeId);
+        if (previous != null && !previous.screenId.equals(slot.screenId)) {
+            remove(previous);
+        }
+        TreeSet<Slot> screen = screen(slot.screenId);
+        synchronized (screen) {
+            Slot conflict = findConflict(screen, slot);
+            if (conflict != null) {
+                if (previous != null && !previous.screenId.equals(slot.screenId)) {
+                    add(previous);
+                }
+                throw new ScheduleConflictException(List.of(ScheduleConflict.builder()
+                        .index(0)
+                        .reason(describe(slot, conflict))
+                        .conflictingShowtimeId(conflict.showtimeId)
+                        .build()));
+            }
+            Slot replaced = slots.get(slot.showtimeId);
+            if (replaced != null) {
+                screen.remove(replaced);
+            }
+            screen.add(slot);
+            slots.put(slot.showtimeId, slot);
+        }
+        onRollback(() -> {
+            remove(slot);
+            if (previous != null) {
+                add(previous);
+            }
+        });
+    }
+
+    // Inside a transaction the slot is only freed once it commits
+    public void release(Long showtimeId) {
+        afterCommit(() -> {
+            Slot slot = slots.get(showtimeId);
+            if (slot != null) {
+                remove(slot);
+            }
+        });
+    }
+
+    /**
+     * Checks a whole schedule at once, against the showtimes already on each screen and against each other,
+     * and returns every conflict found; showtimes are referred to by their index in the list.
+     */
+    public List<ScheduleConflict> validate(List<Showtime> showtimes) {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        Map<Long, List<Integer>> byScreen = new HashMap<>();
+        for (int i = 0; i < showtimes.size(); i++) {
+            Showtime showtime = showtimes.get(i);
+            if (showtime.getScreen() == null || showtime.getScreen().getId() == null
+                    || showtime.getStartTime() == null || showtime.getEndTime() == null) {
+                conflicts.add(ScheduleConflict.builder().index(i).reason("Screen, start and end time are required").build());
+            } else if (!showtime.getStartTime().isBefore(showtime.getEndTime())) {
+                conflicts.add(ScheduleConflict.builder().index(i).reason("Start time must be before end time").build());
+            } else {
+                byScreen.computeIfAbsent(showtime.getScreen().getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        byScreen.forEach((screenId, indexes) -> {
+            indexes.sort(Comparator.comparing(i -> showtimes.get(i).getStartTime()));
+            TreeSet<Slot> screen = screen(screenId);
+            Slot latest = null;
+            int latestIndex = -1;
+            for (int i : indexes) {
+                Showtime showtime = showtimes.get(i);
+                Slot slot = new Slot(showtime.getId() == null ? Long.MIN_VALUE : showtime.getId(), screenId,
+                        showtime.getStartTime(), showtime.getEndTime());
+                Slot existing;
+                synchronized (screen) {
+                    existing = findConflict(screen, slot);
+                }
+                if (existing != null) {
+                    conflicts.add(ScheduleConflict.builder().index(i).reason(describe(slot, existing))
+                            .conflictingShowtimeId(existing.showtimeId).build());
+                } else if (latest != null && overlaps(latest, slot)) {
+                    conflicts.add(ScheduleConflict.builder().index(i).reason(describe(slot, latest))
+                            .conflictingIndex(latestIndex).build());
+                }
+                // Batch slots are sorted by start, so the one ending last is the only one a later slot can hit
+                if (latest == null || slot.end.isAfter(latest.end)) {
+                    latest = slot;
+                    latestIndex = i;
+                }
+            }
+        });
+        conflicts.sort(Comparator.comparingInt(ScheduleConflict::getIndex));
+        return conflicts;
+    }
+
+    // Called with the screen's monitor held
+    private Slot findConflict(TreeSet<Slot> screen, Slot slot) {
+        Slot probe = new Slot(Long.MIN_VALUE, slot.screenId, afterBuffer(slot.end), slot.end);
+        Iterator<Slot> before = screen.headSet(probe, false).descendingIterator();
+        while (before.hasNext()) {
+            Slot candidate = before.next();
+            if (candidate.showtimeId != slot.showtimeId) {
+                return overlaps(candidate, slot) ? candidate : null;
+            }
+        }
+        return null;
+    }
+
+    private boolean overlaps(Slot earlier, Slot later) {
+        return afterBuffer(earlier.end).isAfter(later.start) && afterBuffer(later.end).isAfter(earlier.start);
+    }
+
+    private LocalDateTime afterBuffer(LocalDateTime end) {
+        return end.plus(cleaningBuffer, ChronoUnit.MILLIS);
+    }
+
+    private TreeSet<Slot> screen(Long screenId) {
+        return screens.computeIfAbsent(screenId, id -> {
+            TreeSet<Slot> screen = new TreeSet<>(BY_START);
+            for (ShowtimeRepository.TimeSlot time : showtimeRepository.findTimeSlotsByScreenId(id)) {
+                Slot slot = new Slot(time.getId(), id, time.getStartTime(), time.getEndTime());
+                screen.add(slot);
+                slots.putIfAbsent(slot.showtimeId, slot);
+            }
+            return screen;
+        });
+    }
+
+    private void add(Slot slot) {
+        TreeSet<Slot> screen = screen(slot.screenId);
+        synchronized (screen) {
+            screen.add(slot);
+            slots.put(slot.showtimeId, slot);
+        }
+    }
+
+    private void remove(Slot slot) {
+        TreeSet<Slot> screen = screens.get(slot.screenId);
+        if (screen != null) {
+            synchronized (screen) {
+                screen.remove(slot);
+            }
+        }
+        slots.remove(slot.showtimeId, slot);
+    }
+
+    private static String describe(Slot slot, Slot conflict) {
+        return "Screen " + slot.screenId + " is taken from " + conflict.start + " to " + conflict.end
+                + (conflict.showtimeId == Long.MIN_VALUE ? "" : " by showtime " + conflict.showtimeId)
+                + ", including the cleaning buffer";
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Slot {
+
+        private final long showtimeId;
+        private final Long screenId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private Slot(long showtimeId, Long screenId, LocalDateTime start, LocalDateTime end) {
+            this.showtimeId = showtimeId;
+            this.screenId = screenId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
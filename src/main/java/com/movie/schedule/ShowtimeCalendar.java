@@ -0,0 +1,273 @@
+package com.movie.schedule;
+
+import com.movie.dto.ShowtimeView;
+import com.movie.model.Movie;
+import com.movie.model.Theater;
+import com.movie.repository.ShowtimeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory calendar of the showtimes starting today or later, bucketed by day and by movie, that answers
+ * date-range and upcoming-showtime queries without the database. Built at startup, refreshed from the database
+ * for just the showtimes a write touched, and days that are over are dropped the first time the calendar is
+ * read on a later day. Every call hands out fresh views, so callers may fill them in further.
+ */
+@Component
+public class ShowtimeCalendar {
+
+    private static final Comparator<Entry> BY_START = Comparator.comparing((Entry entry) -> entry.start)
+            .thenComparingLong(entry -> entry.id);
+
+    private final ShowtimeRepository showtimeRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeMap<LocalDate, TreeSet<Entry>> days = new TreeMap<>();
+    private final Map<Long, TreeSet<Entry>> movies = new HashMap<>();
+    // Names are kept once per movie and screen, so renaming a movie is a single replacement
+    private final Map<Long, String> movieTitles = new HashMap<>();
+    private final Map<Long, ShowtimeView> screens = new HashMap<>();
+    // Null until the calendar is built; showtimes starting before this day are not in it
+    private volatile LocalDate firstDay;
+
+    @Autowired
+    public ShowtimeCalendar(ShowtimeRepository showtimeRepository) {
+        this.showtimeRepository = showtimeRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<ShowtimeView> showtimes = showtimeRepository.findViewsStartingFrom(today.atStartOfDay());
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            days.clear();
+            movies.clear();
+            movieTitles.clear();
+            screens.clear();
+            showtimes.forEach(this::put);
+            firstDay = today;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Showtimes starting strictly between the two times, by start time; empty if the range starts before
+     * the calendar does, in which case the caller has to ask the database.
+     */
+    public Optional<List<ShowtimeView>> findStartingBetween(LocalDateTime from, LocalDateTime to) {
+        if (!covers(from)) {
+            return Optional.empty();
+        }
+        if (!to.isAfter(from)) {
+            return Optional.of(List.of());
+        }
+        lock.readLock().lock();
+        try {
+            List<ShowtimeView> showtimes = new ArrayList<>();
+            for (TreeSet<Entry> day : days.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()) {
+                for (Entry entry : startingAfter(day, from)) {
+                    if (!entry.start.isBefore(to)) {
+                        break;
+                    }
+                    showtimes.add(toView(entry));
+                }
+            }
+            return Optional.of(showtimes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether the showtime is in the calendar, i.e. exists and starts today or later
+    public boolean contains(Long showtimeId) {
+        lock.readLock().lock();
+        try {
+            return entries.containsKey(showtimeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Showtimes of the movie starting after the given time, which must not be before today
+    public Optional<List<ShowtimeView>> findByMovieStartingAfter(Long movieId, LocalDateTime from) {
+        if (!covers(from)) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            TreeSet<Entry> showtimes = movies.get(movieId);
+            return Optional.of(showtimes == null ? List.of()
+                    : startingAfter(showtimes, from).stream().map(this::toView).toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reloads the given showtimes once the transaction commits; those no longer found are dropped
+    public void refresh(Collection<Long> showtimeIds) {
+        afterCommit(() -> reload(showtimeIds));
+    }
+
+    public void updateMovie(Movie movie) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                movieTitles.replace(movie.getId(), movie.getTitle());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Updating a theater can also remove its screens, so its showtimes are reloaded rather than patched
+    public void updateTheater(Theater theater) {
+        afterCommit(() -> {
+            List<Long> showtimeIds;
+            lock.readLock().lock();
+            try {
+                showtimeIds = entries.values().stream()
+                        .filter(entry -> screens.get(entry.screenId).getTheaterId().equals(theater.getId()))
+                        .map(entry -> entry.id)
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+            reload(showtimeIds);
+        });
+    }
+
+    private void reload(Collection<Long> showtimeIds) {
+        List<ShowtimeView> showtimes = showtimeRepository.findViewsByIdIn(showtimeIds);
+        lock.writeLock().lock();
+        try {
+            showtimeIds.forEach(this::remove);
+            LocalDate first = firstDay;
+            for (ShowtimeView showtime : showtimes) {
+                if (first != null && !showtime.getStartTime().toLocalDate().isBefore(first)) {
+                    put(showtime);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops the days that are over before answering; true if the calendar has the showtimes from the given time on
+    private boolean covers(LocalDateTime from) {
+        LocalDate first = firstDay;
+        if (first == null) {
+            return false;
+        }
+        LocalDate today = LocalDate.now();
+        if (first.isBefore(today)) {
+            lock.writeLock().lock();
+            try {
+                if (firstDay.isBefore(today)) {
+                    List<Entry> past = new ArrayList<>();
+                    days.headMap(today).values().forEach(past::addAll);
+                    past.forEach(entry -> remove(entry.id));
+                    firstDay = today;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return !from.toLocalDate().isBefore(firstDay);
+    }
+
+    private static NavigableSet<Entry> startingAfter(TreeSet<Entry> showtimes, LocalDateTime from) {
+        return showtimes.tailSet(new Entry(Long.MAX_VALUE, from, null, null, null, null), false);
+    }
+
+    // Called with the write lock held
+    private void put(ShowtimeView showtime) {
+        movieTitles.put(showtime.getMovieId(), showtime.getMovieTitle());
+        // Only the screen and theater fields of these are used
+        screens.put(showtime.getScreenId(), showtime);
+        Entry entry = new Entry(showtime.getId(), showtime.getStartTime(), showtime.getEndTime(), showtime.getPrice(),
+                showtime.getMovieId(), showtime.getScreenId());
+        entries.put(entry.id, entry);
+        days.computeIfAbsent(entry.start.toLocalDate(), day -> new TreeSet<>(BY_START)).add(entry);
+        movies.computeIfAbsent(entry.movieId, id -> new TreeSet<>(BY_START)).add(entry);
+    }
+
+    // Called with the write lock held
+    private void remove(Long showtimeId) {
+        Entry entry = entries.remove(showtimeId);
+        if (entry == null) {
+            return;
+        }
+        TreeSet<Entry> day = days.get(entry.start.toLocalDate());
+        if (day != null && day.remove(entry) && day.isEmpty()) {
+            days.remove(entry.start.toLocalDate());
+        }
+        TreeSet<Entry> movie = movies.get(entry.movieId);
+        if (movie != null && movie.remove(entry) && movie.isEmpty()) {
+            movies.remove(entry.movieId);
+            movieTitles.remove(entry.movieId);
+        }
+    }
+
+    // Called with a lock held
+    private ShowtimeView toView(Entry entry) {
+        ShowtimeView screen = screens.get(entry.screenId);
+        return new ShowtimeView(entry.id, entry.movieId, movieTitles.get(entry.movieId), entry.screenId,
+                screen.getScreenName(), screen.getTheaterId(), screen.getTheaterName(), entry.start, entry.end, entry.price);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final BigDecimal price;
+        private final Long movieId;
+        private final Long screenId;
+
+        private Entry(long id, LocalDateTime start, LocalDateTime end, BigDecimal price, Long movieId, Long screenId) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.price = price;
+            this.movieId = movieId;
+            this.screenId = screenId;
+        }
+    }
+}
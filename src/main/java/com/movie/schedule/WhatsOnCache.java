@@ -0,0 +1,279 @@
+package com.movie.schedule;
+
+import com.movie.dto.Occupancy;
+import com.movie.dto.WhatsOn;
+import com.movie.inventory.SeatInventory;
+import com.movie.model.Movie;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.ShowtimeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputed "what's on" listings, one snapshot per day from today up to {@code showtime.whats-on.days} ahead.
+ * A day is built on first request with one fetch-join query for its showtimes and the grouped seat counts, and is
+ * then patched rather than rebuilt: showtime writes reload just the showtimes they touched, and every seat change
+ * reported by the seat inventory updates the remaining seats of its showtime. Movie and theater updates drop all days.
+ */
+@Component
+public class WhatsOnCache {
+
+    // The order listings are grouped in: movie, then theater, then start time
+    private static final Comparator<Listing> ORDER = Comparator
+            .comparing((Listing listing) -> listing.title, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(listing -> listing.movieId)
+            .thenComparing(listing -> listing.theaterName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(listing -> listing.theaterId)
+            .thenComparing(listing -> listing.start)
+            .thenComparing(listing -> listing.showtimeId);
+
+    private final ShowtimeRepository showtimeRepository;
+    private final SeatInventory seatInventory;
+
+    @Value("${showtime.whats-on.days}")
+    private int cachedDays;
+
+    private final Map<LocalDate, Day> days = new ConcurrentHashMap<>();
+    private final Map<Long, Day> dayOfShowtime = new ConcurrentHashMap<>();
+    // Bumped by every write, so a day built while a write was in flight is served once but not kept
+    private final AtomicLong generation = new AtomicLong();
+    private final Object writes = new Object();
+
+    @Autowired
+    public WhatsOnCache(ShowtimeRepository showtimeRepository, SeatInventory seatInventory) {
+        this.showtimeRepository = showtimeRepository;
+        this.seatInventory = seatInventory;
+        seatInventory.addListener(delta -> recountLive(delta.getShowtimeId()));
+    }
+
+    // Showtimes starting on the given day, limited to theaters at the given location unless it is null
+    public WhatsOn get(LocalDate date, String location) {
+        Day day = days.get(date);
+        if (day == null) {
+            day = build(date);
+        }
+        return WhatsOn.builder()
+                .date(date)
+                .location(location)
+                .movies(day.group(location))
+                .build();
+    }
+
+    // Reloads the given showtimes once the transaction commits; those no longer found are dropped
+    public void refresh(Collection<Long> showtimeIds) {
+        afterCommit(() -> reload(showtimeIds));
+    }
+
+    // Recounts the remaining seats of showtimes whose bookings changed outside the seat inventory
+    public void recount(Collection<Long> showtimeIds) {
+        Map<Long, Occupancy> occupancy = seatInventory.getOccupancy(showtimeIds);
+        occupancy.forEach((showtimeId, counted) -> {
+            Day day = dayOfShowtime.get(showtimeId);
+            if (day != null) {
+                day.remaining.computeIfPresent(showtimeId, (id, free) -> counted.getFree());
+            }
+        });
+        showtimeIds.forEach(this::recountLive);
+    }
+
+    // Movie and theater details are copied into every listing, so a change to one drops all days
+    public void clear() {
+        afterCommit(() -> {
+            synchronized (writes) {
+                generation.incrementAndGet();
+                days.clear();
+                dayOfShowtime.clear();
+            }
+        });
+    }
+
+    private Day build(LocalDate date) {
+        long built = generation.get();
+        List<Listing> listings = showtimeRepository
+                .findWithDetailsStartingInRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay()).stream()
+                .map(Listing::of)
+                .sorted(ORDER)
+                .toList();
+        Day day = new Day(date, listings);
+        seatInventory.getOccupancy(listings.stream().map(listing -> listing.showtimeId).toList())
+                .forEach((showtimeId, occupancy) -> day.remaining.put(showtimeId, occupancy.getFree()));
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today) || !date.isBefore(today.plusDays(cachedDays))) {
+            return day;
+        }
+        synchronized (writes) {
+            if (generation.get() != built) {
+                return day;
+            }
+            days.keySet().removeIf(cached -> cached.isBefore(today));
+            dayOfShowtime.values().removeIf(cached -> cached.date.isBefore(today));
+            Day existing = days.putIfAbsent(date, day);
+            if (existing != null) {
+                return existing;
+            }
+            listings.forEach(listing -> dayOfShowtime.put(listing.showtimeId, day));
+        }
+        // Seats may have changed between counting them and the day being found by the seat listener
+        listings.forEach(listing -> recountLive(listing.showtimeId));
+        return day;
+    }
+
+    private void reload(Collection<Long> showtimeIds) {
+        generation.incrementAndGet();
+        List<Listing> listings = showtimeRepository.findWithDetailsByIdIn(showtimeIds).stream()
+                .map(Listing::of)
+                .toList();
+        Map<Long, Occupancy> occupancy = seatInventory.getOccupancy(listings.stream()
+                .map(listing -> listing.showtimeId)
+                .toList());
+        synchronized (writes) {
+            for (Long showtimeId : showtimeIds) {
+                Day day = dayOfShowtime.remove(showtimeId);
+                if (day != null) {
+                    day.remove(showtimeId);
+                }
+            }
+            for (Listing listing : listings) {
+                Day day = days.get(listing.start.toLocalDate());
+                Occupancy counted = occupancy.get(listing.showtimeId);
+                if (day != null && counted != null) {
+                    day.add(listing, counted.getFree());
+                    dayOfShowtime.put(listing.showtimeId, day);
+                }
+            }
+        }
+        listings.forEach(listing -> recountLive(listing.showtimeId));
+    }
+
+    // Takes the remaining seats from the live counters of a showtime loaded into the seat inventory
+    private void recountLive(Long showtimeId) {
+        Day day = dayOfShowtime.get(showtimeId);
+        if (day != null) {
+            seatInventory.getIfLoaded(showtimeId).ifPresent(seats ->
+                    day.remaining.computeIfPresent(showtimeId, (id, free) -> seats.getOccupancy().getFree()));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Day {
+
+        private final LocalDate date;
+        private final Map<Long, Integer> remaining = new ConcurrentHashMap<>();
+        // Replaced, never changed, so readers need no lock; writers hold the cache's write monitor
+        private volatile List<Listing> listings;
+
+        private Day(LocalDate date, List<Listing> listings) {
+            this.date = date;
+            this.listings = listings;
+        }
+
+        private void add(Listing listing, int free) {
+            remaining.put(listing.showtimeId, free);
+            List<Listing> changed = new ArrayList<>(listings);
+            changed.add(listing);
+            changed.sort(ORDER);
+            listings = List.copyOf(changed);
+        }
+
+        private void remove(Long showtimeId) {
+            listings = listings.stream()
+                    .filter(listing -> !listing.showtimeId.equals(showtimeId))
+                    .toList();
+            remaining.remove(showtimeId);
+        }
+
+        // Listings come sorted by movie and theater, so each group is a run of consecutive listings
+        private List<WhatsOn.MovieListing> group(String location) {
+            List<WhatsOn.MovieListing> movies = new ArrayList<>();
+            WhatsOn.MovieListing movie = null;
+            WhatsOn.TheaterListing theater = null;
+            for (Listing listing : listings) {
+                if (location != null && !location.equalsIgnoreCase(listing.theaterLocation)) {
+                    continue;
+                }
+                if (movie == null || !movie.getMovieId().equals(listing.movieId)) {
+                    movie = new WhatsOn.MovieListing(listing.movieId, listing.title, listing.genre, listing.duration,
+                            listing.posterUrl, new ArrayList<>());
+                    movies.add(movie);
+                    theater = null;
+                }
+                if (theater == null || !theater.getTheaterId().equals(listing.theaterId)) {
+                    theater = new WhatsOn.TheaterListing(listing.theaterId, listing.theaterName,
+                            listing.theaterLocation, new ArrayList<>());
+                    movie.getTheaters().add(theater);
+                }
+                theater.getShowtimes().add(new WhatsOn.ShowtimeListing(listing.showtimeId, listing.screenId,
+                        listing.screenName, listing.start, listing.end, listing.price,
+                        remaining.getOrDefault(listing.showtimeId, 0)));
+            }
+            return movies;
+        }
+    }
+
+    private static final class Listing {
+
+        private final Long showtimeId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final BigDecimal price;
+        private final Long movieId;
+        private final String title;
+        private final String genre;
+        private final Integer duration;
+        private final String posterUrl;
+        private final Long theaterId;
+        private final String theaterName;
+        private final String theaterLocation;
+        private final Long screenId;
+        private final String screenName;
+
+        private Listing(Showtime showtime, Movie movie, Theater theater) {
+            this.showtimeId = showtime.getId();
+            this.start = showtime.getStartTime();
+            this.end = showtime.getEndTime();
+            this.price = showtime.getPrice();
+            this.movieId = movie.getId();
+            this.title = movie.getTitle();
+            this.genre = movie.getGenre();
+            this.duration = movie.getDuration();
+            this.posterUrl = movie.getPosterUrl();
+            this.theaterId = theater.getId();
+            this.theaterName = theater.getName();
+            this.theaterLocation = theater.getLocation();
+            this.screenId = showtime.getScreen().getId();
+            this.screenName = showtime.getScreen().getName();
+        }
+
+        // The showtime must have been read with its movie, screen and theater fetched
+        private static Listing of(Showtime showtime) {
+            return new Listing(showtime, showtime.getMovie(), showtime.getScreen().getTheater());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.movie.search;
+
+import com.movie.model.Movie;
+import com.movie.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the movie catalog. Every word is indexed by its trigrams, padded
+ * with a space on both sides so that word starts and ends are grams of their own. A query matches
+ * a movie by the share of its grams found in the title (and, with less weight, in the genre and
+ * description), which also tolerates small typos. Built at startup and kept current by catalog writes.
+ * Each movie keeps its number across updates and the numbers of deleted movies are reused, so numbering stays
+ * dense; posting lists are sorted int arrays, and a query adds up scores only for the movies its grams reach
+ * and keeps the best few in a small heap.
+ */
+@Component
+public class MovieSearchIndex {
+
+    // Share of the query's grams a movie must contain to be a result at all
+    private static final float MIN_SCORE = 0.25f;
+    private static final float OTHER_FIELDS_WEIGHT = 0.3f;
+    private static final float SUBSTRING_BONUS = 1.0f;
+    private static final float PREFIX_BONUS = 0.5f;
+    private static final int[] NONE = new int[0];
+
+    private final MovieRepository movieRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Indexed by document number; null where a movie was removed
+    private final List<Entry> documents = new ArrayList<>();
+    private final Map<Long, Integer> documentOf = new HashMap<>();
+    // Numbers of removed movies, handed to the next movie added
+    private final Deque<Integer> freeDocuments = new ArrayDeque<>();
+    private final TreeMap<String, int[]> titleGrams = new TreeMap<>();
+    private final Map<String, int[]> otherGrams = new HashMap<>();
+
+    @Autowired
+    public MovieSearchIndex(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Movie> all = movieRepository.findAll();
+        Map<String, List<Integer>> title = new HashMap<>();
+        Map<String, List<Integer>> other = new HashMap<>();
+        List<Entry> entries = new ArrayList<>(all.size());
+        for (Movie movie : all) {
+            Entry entry = entry(movie);
+            int document = entries.size();
+            entries.add(entry);
+            entry.titleGrams.forEach(gram -> title.computeIfAbsent(gram, g -> new ArrayList<>()).add(document));
+            entry.otherGrams.forEach(gram -> other.computeIfAbsent(gram, g -> new ArrayList<>()).add(document));
+        }
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            documentOf.clear();
+            freeDocuments.clear();
+            titleGrams.clear();
+            otherGrams.clear();
+            documents.addAll(entries);
+            for (int document = 0; document < entries.size(); document++) {
+                documentOf.put(entries.get(document).movie.getId(), document);
+            }
+            title.forEach((gram, ids) -> titleGrams.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+            other.forEach((gram, ids) -> otherGrams.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Inside a transaction the index only changes once it commits
+    public void put(Movie movie) {
+        afterCommit(() -> {
+            Entry entry = entry(movie);
+            lock.writeLock().lock();
+            try {
+                int document = number(movie.getId());
+                documents.set(document, entry);
+                entry.titleGrams.forEach(gram -> titleGrams.merge(gram, new int[] {document}, MovieSearchIndex::insert));
+                entry.otherGrams.forEach(gram -> otherGrams.merge(gram, new int[] {document}, MovieSearchIndex::insert));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void delete(Long movieId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(movieId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Movies matching the query, best first. Queries shorter than a trigram match words starting with them.
+     */
+    public List<Movie> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Scores scores = new Scores();
+            if (normalized.length() < 3) {
+                for (int[] postings : titleGrams.subMap(" " + normalized, " " + normalized + Character.MAX_VALUE).values()) {
+                    scores.add(postings, 1);
+                }
+            } else {
+                Set<String> grams = grams(normalized);
+                float weight = 1f / grams.size();
+                for (String gram : grams) {
+                    scores.add(titleGrams.getOrDefault(gram, NONE), weight);
+                    scores.add(otherGrams.getOrDefault(gram, NONE), weight * OTHER_FIELDS_WEIGHT);
+                }
+            }
+            return top(scores, normalized, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Called with the read lock held
+    private List<Movie> top(Scores scores, String query, int limit) {
+        Comparator<Hit> worstFirst = Comparator.<Hit>comparingDouble(hit -> hit.score)
+                .thenComparing(hit -> documents.get(hit.document).title, Comparator.reverseOrder());
+        PriorityQueue<Hit> best = new PriorityQueue<>(worstFirst);
+        for (int slot = 0; slot < scores.documents.length; slot++) {
+            int document = scores.documents[slot];
+            if (document == Scores.FREE) {
+                continue;
+            }
+            float gramScore = scores.scores[slot];
+            // Skip the string checks for movies that cannot make it into a full list even with both bonuses
+            if (gramScore < MIN_SCORE || best.size() == limit
+                    && gramScore + SUBSTRING_BONUS + PREFIX_BONUS < best.peek().score) {
+                continue;
+            }
+            String title = documents.get(document).title;
+            float score = gramScore + (title.startsWith(query) ? SUBSTRING_BONUS + PREFIX_BONUS
+                    : title.contains(query) ? SUBSTRING_BONUS : 0);
+            Hit hit = new Hit(document, score);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (worstFirst.compare(hit, best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+        Movie[] results = new Movie[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = documents.get(best.poll().document).movie;
+        }
+        return Arrays.asList(results);
+    }
+
+    // Called with the write lock held. The movie's number, unlinked from its old grams if it had one
+    private int number(Long movieId) {
+        Integer document = documentOf.get(movieId);
+        if (document != null) {
+            unlink(document);
+            return document;
+        }
+        document = freeDocuments.isEmpty() ? documents.size() : freeDocuments.pop();
+        if (document == documents.size()) {
+            documents.add(null);
+        }
+        documentOf.put(movieId, document);
+        return document;
+    }
+
+    // Called with the write lock held. The document number is freed for the next movie added
+    private void remove(Long movieId) {
+        Integer document = documentOf.remove(movieId);
+        if (document == null) {
+            return;
+        }
+        unlink(document);
+        documents.set(document, null);
+        freeDocuments.push(document);
+    }
+
+    private void unlink(int document) {
+        Entry entry = documents.get(document);
+        entry.titleGrams.forEach(gram -> unlink(titleGrams, gram, document));
+        entry.otherGrams.forEach(gram -> unlink(otherGrams, gram, document));
+    }
+
+    private static void unlink(Map<String, int[]> postings, String gram, int document) {
+        int[] documents = postings.get(gram);
+        int at = documents == null ? -1 : Arrays.binarySearch(documents, document);
+        if (at < 0) {
+            return;
+        }
+        if (documents.length == 1) {
+            postings.remove(gram);
+            return;
+        }
+        int[] rest = new int[documents.length - 1];
+        System.arraycopy(documents, 0, rest, 0, at);
+        System.arraycopy(documents, at + 1, rest, at, rest.length - at);
+        postings.put(gram, rest);
+    }
+
+    // Keeps posting lists sorted, as document numbers are reused
+    private static int[] insert(int[] documents, int[] added) {
+        int at = -Arrays.binarySearch(documents, added[0]) - 1;
+        int[] grown = new int[documents.length + 1];
+        System.arraycopy(documents, 0, grown, 0, at);
+        grown[at] = added[0];
+        System.arraycopy(documents, at, grown, at + 1, documents.length - at);
+        return grown;
+    }
+
+    private static Entry entry(Movie movie) {
+        String title = normalize(movie.getTitle());
+        return new Entry(movie, title, grams(title),
+                grams(normalize(movie.getGenre()) + " " + normalize(movie.getDescription())));
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : text.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    // Lower case without accents, with anything but letters and digits turned into single spaces
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Entry {
+
+        private final Movie movie;
+        private final String title;
+        private final Set<String> titleGrams;
+        private final Set<String> otherGrams;
+
+        private Entry(Movie movie, String title, Set<String> titleGrams, Set<String> otherGrams) {
+            this.movie = movie;
+            this.title = title;
+            this.titleGrams = titleGrams;
+            this.otherGrams = otherGrams;
+        }
+    }
+
+    // Score of each document any posting list reached, in an open-addressing table sized to those documents
+    private static final class Scores {
+
+        private static final int FREE = -1;
+
+        private int[] documents = free(64);
+        private float[] scores = new float[64];
+        private int size;
+
+        private void add(int[] postings, float weight) {
+            for (int document : postings) {
+                int slot = slot(documents, document);
+                if (documents[slot] == FREE) {
+                    documents[slot] = document;
+                    scores[slot] = weight;
+                    if (++size * 2 > documents.length) {
+                        grow();
+                    }
+                } else {
+                    scores[slot] += weight;
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldDocuments = documents;
+            float[] oldScores = scores;
+            documents = free(oldDocuments.length * 2);
+            scores = new float[documents.length];
+            for (int i = 0; i < oldDocuments.length; i++) {
+                if (oldDocuments[i] != FREE) {
+                    int slot = slot(documents, oldDocuments[i]);
+                    documents[slot] = oldDocuments[i];
+                    scores[slot] = oldScores[i];
+                }
+            }
+        }
+
+        // The document's slot, or the free slot where it belongs
+        private static int slot(int[] documents, int document) {
+            int mask = documents.length - 1;
+            int hash = document * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (documents[slot] != FREE && documents[slot] != document) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] free(int length) {
+            int[] documents = new int[length];
+            Arrays.fill(documents, FREE);
+            return documents;
+        }
+    }
+
+    private static final class Hit {
+
+        private final int document;
+        private final float score;
+
+        private Hit(int document, float score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.movie.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal of an authenticated request that also carries the user's id, so controllers know who is calling
+ * without looking the user up. Built from the signed claims of a token, or from the users table at login.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        // Principals built from a token have no password; the parent only requires one to be present
+        super(username, password == null ? "" : password, authorities);
+        this.id = id;
+    }
+
+    public static AuthenticatedUser of(Long id, String username, Collection<String> roles) {
+        List<SimpleGrantedAuthority> authorities = roles.stream().map(SimpleGrantedAuthority::new).toList();
+        return new AuthenticatedUser(id, username, null, authorities);
+    }
+
+    // The caller's user id, or null when the request is not authenticated with one
+    public static Long idOf(Authentication authentication) {
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
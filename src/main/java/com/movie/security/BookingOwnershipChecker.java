@@ -20,8 +20,9 @@ public class BookingOwnershipChecker {
             return false;
         }
 
-        return bookingRepository.findById(bookingId)
-                .map(booking -> booking.getUser().getUsername().equals(authentication.getName()))
-                .orElse(false);
+        Long userId = AuthenticatedUser.idOf(authentication);
+        return userId != null
+                ? bookingRepository.existsByIdAndUserId(bookingId, userId)
+                : bookingRepository.existsByIdAndUserUsername(bookingId, authentication.getName());
     }
 }
@@ -1,5 +1,6 @@
 package com.movie.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,6 +27,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -32,21 +37,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        // Verified once per request (and signature-checked once per token), then only the claims are read
+        Optional<Claims> claims = jwtService.verify(authHeader.substring(7));
+        String username = claims.map(Claims::getSubject).orElse(null);
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            UserDetails userDetails = principalOf(claims.get());
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -60,4 +63,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Null when the token's user no longer exists, as far as the principal cache knows
+    private UserDetails principalOf(Claims claims) {
+        Optional<AuthenticatedUser> signed = jwtService.extractPrincipal(claims);
+        if (signed.isEmpty()) {
+            // Tokens issued before the user's id and roles were signed into them
+            return this.userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (principalCache.isEnabled()) {
+            return principalCache.get(signed.get().getId(), signed.get().getUsername()).orElse(null);
+        }
+        return signed.get();
+    }
 }
@@ -0,0 +1,60 @@
+package com.movie.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movie.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Current principals by user id, read from the users table at most once per {@code jwt.principal-cache.spec}
+ * expiry. When {@code jwt.principal-cache.enabled} is set, a token is only honoured while its user still exists,
+ * and with the user's current roles rather than those signed into it, so deleting a user or taking a role away
+ * takes effect within that expiry instead of when the token runs out. Otherwise the token's claims are trusted.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.principal-cache.enabled}")
+    private boolean enabled;
+
+    @Value("${jwt.principal-cache.spec}")
+    private String spec;
+
+    private Cache<Long, Optional<AuthenticatedUser>> principals;
+
+    @Autowired
+    public PrincipalCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.from(spec).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Empty once the user is gone, or if the id now belongs to someone else
+    public Optional<AuthenticatedUser> get(Long userId, String username) {
+        return principals.get(userId, this::load)
+                .filter(principal -> principal.getUsername().equals(username));
+    }
+
+    public void evict(Long userId) {
+        principals.invalidate(userId);
+    }
+
+    private Optional<AuthenticatedUser> load(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> AuthenticatedUser.of(user.getId(), user.getUsername(), user.getRoles()));
+    }
+}
@@ -5,6 +5,7 @@ import com.movie.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -48,6 +49,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/movies/**").permitAll()
                 .requestMatchers("/api/theaters/**").permitAll()
                 .requestMatchers("/api/showtimes/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/screens/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll() // Only for development
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
@@ -69,12 +71,13 @@ public class SecurityConfig {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
-    private org.springframework.security.core.userdetails.User buildUserDetails(User user) {
+    private AuthenticatedUser buildUserDetails(User user) {
         var authorities = user.getRoles().stream()
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 authorities
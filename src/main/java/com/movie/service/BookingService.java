@@ -1,23 +1,44 @@
 package com.movie.service;
 
+import com.movie.dto.BookingView;
+import com.movie.dto.BulkCancellation;
+import com.movie.dto.CursorPage;
+import com.movie.dto.Occupancy;
+import com.movie.dto.SeatMap;
+import com.movie.dto.SeatView;
 import com.movie.model.Booking;
 import com.movie.model.Seat;
 import com.movie.model.Showtime;
 import com.movie.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface BookingService {
-    List<Booking> getAllBookings();
+    CursorPage<BookingView> getBookings(Long after, int size);
+    Optional<BookingView> getBookingView(Long id);
+    List<BookingView> getBookingViewsByUsername(String username);
+    void exportBookings(Consumer<Booking> consumer);
     Optional<Booking> getBookingById(Long id);
     Booking createBooking(User user, Showtime showtime, Set<Seat> seats);
+    Optional<Booking> bookSeats(Long userId, Long showtimeId, Set<Long> seatIds, boolean hold);
+    Booking holdSeats(User user, Showtime showtime, Set<Seat> seats);
+    Booking bookBestAvailable(User user, Showtime showtime, int count, boolean hold);
+    Booking confirmBooking(Long id);
     Booking updateBookingStatus(Long id, Booking.BookingStatus status);
     void cancelBooking(Long id);
+    BulkCancellation cancelBookingsForShowtime(Long showtimeId);
+    BulkCancellation cancelBookingsForScreen(Long screenId, LocalDateTime from, LocalDateTime to);
     List<Booking> getBookingsByUser(User user);
     List<Booking> getBookingsByShowtime(Showtime showtime);
     List<Booking> getBookingsByUserAndStatus(User user, Booking.BookingStatus status);
     boolean isSeatAvailableForShowtime(Seat seat, Showtime showtime);
-    Set<Seat> getAvailableSeatsForShowtime(Showtime showtime);
+    List<SeatView> getAvailableSeatsForShowtime(Showtime showtime);
+    Optional<SeatMap> getSeatMap(Long showtimeId);
+    Map<Long, Occupancy> getOccupancy(Collection<Long> showtimeIds);
 }
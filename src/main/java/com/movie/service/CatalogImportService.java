@@ -0,0 +1,10 @@
+package com.movie.service;
+
+import com.movie.dto.ImportResult;
+
+import java.io.InputStream;
+
+public interface CatalogImportService {
+    ImportResult importNdjson(InputStream in);
+    ImportResult importCsv(InputStream in);
+}
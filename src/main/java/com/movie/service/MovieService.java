@@ -1,16 +1,17 @@
 package com.movie.service;
 
+import com.movie.dto.CursorPage;
 import com.movie.model.Movie;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface MovieService {
-    List<Movie> getAllMovies();
+    CursorPage<Movie> getMovies(Long after, int size);
     Optional<Movie> getMovieById(Long id);
     Movie addMovie(Movie movie);
     Movie updateMovie(Long id, Movie movie);
     void deleteMovie(Long id);
     List<Movie> getMoviesByGenre(String genre);
-    List<Movie> searchMoviesByTitle(String title);
+    List<Movie> searchMoviesByTitle(String title, int limit);
 }
@@ -0,0 +1,13 @@
+package com.movie.service;
+
+import com.movie.dto.LayoutTemplate;
+import com.movie.dto.ScreenRequest;
+import com.movie.dto.ScreenView;
+
+import java.util.Optional;
+
+public interface ScreenService {
+    Optional<ScreenView> getScreen(Long id);
+    ScreenView createScreen(ScreenRequest request);
+    ScreenView regenerateSeats(Long screenId, LayoutTemplate layout);
+}
@@ -1,21 +1,31 @@
 package com.movie.service;
 
+import com.movie.dto.CursorPage;
+import com.movie.dto.ScheduleConflict;
+import com.movie.dto.ShowtimeView;
+import com.movie.dto.WhatsOn;
 import com.movie.model.Movie;
 import com.movie.model.Screen;
 import com.movie.model.Showtime;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ShowtimeService {
-    List<Showtime> getAllShowtimes();
+    CursorPage<ShowtimeView> getShowtimes(String after, int size);
     Optional<Showtime> getShowtimeById(Long id);
+    boolean showtimeExists(Long id);
+    Optional<ShowtimeView> getShowtimeView(Long id);
     Showtime addShowtime(Showtime showtime);
+    List<Showtime> addShowtimes(List<Showtime> showtimes);
+    List<ScheduleConflict> validateSchedule(List<Showtime> showtimes);
     Showtime updateShowtime(Long id, Showtime showtime);
     void deleteShowtime(Long id);
-    List<Showtime> getShowtimesByMovie(Movie movie);
+    List<ShowtimeView> getShowtimesByMovie(Movie movie);
     List<Showtime> getShowtimesByScreen(Screen screen);
-    List<Showtime> getShowtimesByDateRange(LocalDateTime startDate, LocalDateTime endDate);
-    List<Showtime> getUpcomingShowtimesByMovie(Movie movie);
+    List<ShowtimeView> getShowtimesByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+    List<ShowtimeView> getUpcomingShowtimesByMovie(Movie movie);
+    WhatsOn getWhatsOn(LocalDate date, String location);
 }
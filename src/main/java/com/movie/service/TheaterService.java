@@ -1,12 +1,13 @@
 package com.movie.service;
 
+import com.movie.dto.CursorPage;
 import com.movie.model.Theater;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface TheaterService {
-    List<Theater> getAllTheaters();
+    CursorPage<Theater> getTheaters(Long after, int size);
     Optional<Theater> getTheaterById(Long id);
     Theater addTheater(Theater theater);
     Theater updateTheater(Long id, Theater theater);
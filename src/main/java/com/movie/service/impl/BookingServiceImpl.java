@@ -1,38 +1,146 @@
 package com.movie.service.impl;
 
+import com.movie.dto.BookingView;
+import com.movie.dto.BulkCancellation;
+import com.movie.dto.CursorPage;
+import com.movie.dto.Occupancy;
+import com.movie.dto.SeatMap;
+import com.movie.dto.SeatView;
+import com.movie.inventory.NoAdjacentSeatsException;
+import com.movie.inventory.ScreenLayout;
+import com.movie.inventory.SeatHoldExpiry;
+import com.movie.inventory.SeatInventory;
+import com.movie.inventory.ShowtimeSeats;
 import com.movie.model.Booking;
 import com.movie.model.Seat;
 import com.movie.model.Showtime;
+import com.movie.model.ShowtimeSeat;
 import com.movie.model.User;
 import com.movie.repository.BookingRepository;
 import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.ShowtimeSeatRepository;
 import com.movie.service.BookingService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class BookingServiceImpl implements BookingService {
 
+    // Bookings an export reads the seats of at once, and keeps in the persistence context before clearing it
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final BookingRepository bookingRepository;
     private final SeatRepository seatRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ShowtimeSeatRepository showtimeSeatRepository;
+    private final SeatInventory seatInventory;
+    private final SeatHoldExpiry seatHoldExpiry;
+    private final BookingWritePipeline bookingWritePipeline;
+    private final BulkBookingCanceller bulkBookingCanceller;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${booking.hold.ttl}")
+    private long holdTtl;
+
+    @Value("${booking.write.timeout}")
+    private long writeTimeout;
 
     @Autowired
-    public BookingServiceImpl(BookingRepository bookingRepository, SeatRepository seatRepository) {
+    public BookingServiceImpl(BookingRepository bookingRepository, SeatRepository seatRepository,
+                              ShowtimeRepository showtimeRepository, ShowtimeSeatRepository showtimeSeatRepository,
+                              SeatInventory seatInventory, SeatHoldExpiry seatHoldExpiry,
+                              BookingWritePipeline bookingWritePipeline, BulkBookingCanceller bulkBookingCanceller) {
         this.bookingRepository = bookingRepository;
         this.seatRepository = seatRepository;
+        this.showtimeRepository = showtimeRepository;
+        this.showtimeSeatRepository = showtimeSeatRepository;
+        this.seatInventory = seatInventory;
+        this.seatHoldExpiry = seatHoldExpiry;
+        this.bookingWritePipeline = bookingWritePipeline;
+        this.bulkBookingCanceller = bulkBookingCanceller;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingView> getBookings(Long after, int size) {
+        int limit = CursorPage.limit(size);
+        List<BookingView> bookings = withSeats(bookingRepository.findViewsAfter(after == null ? 0L : after,
+                PageRequest.ofSize(limit)));
+        return CursorPage.of(bookings, limit, booking -> booking.getId().toString());
     }
 
     @Override
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    @Transactional(readOnly = true)
+    public Optional<BookingView> getBookingView(Long id) {
+        return bookingRepository.findViewById(id).map(booking -> withSeats(List.of(booking)).get(0));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingView> getBookingViewsByUsername(String username) {
+        return withSeats(bookingRepository.findViewsByUsername(username));
+    }
+
+    /**
+     * Hands every booking with its seats to the consumer in id order, holding only a bounded number in memory.
+     * Bookings are streamed alone, one row each, and their seats read per chunk, so clearing the persistence context
+     * between chunks never cuts a booking's seats short.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookings(Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamAll()) {
+            List<Booking> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+                chunk.add(booking);
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    export(chunk, consumer);
+                }
+            }
+            export(chunk, consumer);
+        }
+    }
+
+    private void export(List<Booking> chunk, Consumer<Booking> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        bookingRepository.fetchSeats(chunk.stream().map(Booking::getId).toList());
+        chunk.forEach(consumer);
+        chunk.clear();
+        entityManager.clear();
     }
 
     @Override
@@ -41,24 +149,115 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Booking createBooking(User user, Showtime showtime, Set<Seat> seats) {
-        // Validate seats are available
-        for (Seat seat : seats) {
-            if (!isSeatAvailableForShowtime(seat, showtime)) {
-                throw new IllegalArgumentException("Seat " + seat.getRow() + seat.getNumber() + " is not available for the selected showtime");
+        // Claim all seats at once so concurrent requests cannot sell the same seat twice
+        ShowtimeSeats showtimeSeats = seatInventory.get(showtime);
+        List<Long> seatIds = seatIds(seats);
+        if (!showtimeSeats.tryReserve(seatIds)) {
+            throw seatsUnavailable(showtimeSeats, seats);
+        }
+
+        return write(newBooking(user, showtime, seats, Booking.BookingStatus.CONFIRMED), showtimeSeats, seatIds);
+    }
+
+    /**
+     * Books or holds seats given by id, for the API; empty if there is no such showtime. Only the requested seats
+     * are read, in one query that also checks they are on the showtime's screen, and the user and showtime are
+     * referred to by id without being loaded, so a booking costs the same few statements however many seats it has.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Booking> bookSeats(Long userId, Long showtimeId, Set<Long> seatIds, boolean hold) {
+        if (seatIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one seat is required");
+        }
+        Set<Seat> seats = new HashSet<>(seatRepository.findByIdInForShowtime(seatIds, showtimeId));
+        if (seats.size() != seatIds.size()) {
+            if (seats.isEmpty() && !showtimeRepository.existsById(showtimeId)) {
+                return Optional.empty();
             }
+            throw new IllegalArgumentException("One or more seats are invalid");
         }
 
-        // Create new booking
-        Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setShowtime(showtime);
-        booking.setSeats(seats);
-        booking.setBookingTime(LocalDateTime.now());
-        booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        ShowtimeSeats showtimeSeats = seatInventory.get(showtimeId, seats.iterator().next().getScreen().getId());
+        List<Long> ids = seatIds(seats);
+        User user = entityManager.getReference(User.class, userId);
+        Showtime showtime = entityManager.getReference(Showtime.class, showtimeId);
+        if (hold) {
+            if (!showtimeSeats.tryHold(ids)) {
+                throw seatsUnavailable(showtimeSeats, seats);
+            }
+            Booking booking = newBooking(user, showtime, seats, Booking.BookingStatus.PENDING);
+            return Optional.of(writeHold(booking, showtimeSeats, ids));
+        }
+        if (!showtimeSeats.tryReserve(ids)) {
+            throw seatsUnavailable(showtimeSeats, seats);
+        }
+        Booking booking = newBooking(user, showtime, seats, Booking.BookingStatus.CONFIRMED);
+        return Optional.of(write(booking, showtimeSeats, ids));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Booking holdSeats(User user, Showtime showtime, Set<Seat> seats) {
+        ShowtimeSeats showtimeSeats = seatInventory.get(showtime);
+        List<Long> seatIds = seatIds(seats);
+        if (!showtimeSeats.tryHold(seatIds)) {
+            throw seatsUnavailable(showtimeSeats, seats);
+        }
+
+        return writeHold(newBooking(user, showtime, seats, Booking.BookingStatus.PENDING), showtimeSeats, seatIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Booking bookBestAvailable(User user, Showtime showtime, int count, boolean hold) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of seats must be positive");
+        }
+        // The block is picked and claimed under the showtime's lock, so nobody can take it in between
+        ShowtimeSeats showtimeSeats = seatInventory.get(showtime);
+        List<Long> seatIds = showtimeSeats.tryReserveBest(count, hold);
+        if (seatIds.isEmpty()) {
+            throw new NoAdjacentSeatsException(count);
+        }
+
+        Set<Seat> seats;
+        try {
+            seats = new HashSet<>(seatRepository.findAllById(seatIds));
+        } catch (RuntimeException e) {
+            showtimeSeats.release(seatIds);
+            throw e;
+        }
+        if (hold) {
+            return writeHold(newBooking(user, showtime, seats, Booking.BookingStatus.PENDING), showtimeSeats, seatIds);
+        }
+        return write(newBooking(user, showtime, seats, Booking.BookingStatus.CONFIRMED), showtimeSeats, seatIds);
+    }
+
+    @Override
+    public Booking confirmBooking(Long id) {
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Booking with ID " + id + " not found"));
+        if (booking.getStatus() != Booking.BookingStatus.PENDING) {
+            throw new IllegalArgumentException("Booking with ID " + id + " is not pending");
+        }
+
+        // Conditional update, so a confirmation racing the expiry of its hold cannot both win
+        if (bookingRepository.confirmHold(id, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Hold for booking " + id + " has expired");
+        }
+        showtimeSeatRepository.markBooked(id);
+        ShowtimeSeats showtimeSeats = seatInventory.get(booking.getShowtime());
+        List<Long> seatIds = seatIds(booking.getSeats());
+        if (!showtimeSeats.confirmHold(seatIds)) {
+            throw new IllegalArgumentException("Hold for booking " + id + " has expired");
+        }
+        afterRollback(() -> showtimeSeats.revertConfirm(seatIds));
 
-        return bookingRepository.save(booking);
+        booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        return booking;
     }
 
     @Override
@@ -66,6 +265,10 @@ public class BookingServiceImpl implements BookingService {
         Optional<Booking> bookingOpt = bookingRepository.findById(id);
         if (bookingOpt.isPresent()) {
             Booking booking = bookingOpt.get();
+            if (booking.getStatus() == Booking.BookingStatus.PENDING && status == Booking.BookingStatus.CONFIRMED) {
+                return confirmBooking(id);
+            }
+            syncInventory(booking, booking.getStatus(), status);
             booking.setStatus(status);
             return bookingRepository.save(booking);
         }
@@ -77,6 +280,24 @@ public class BookingServiceImpl implements BookingService {
         updateBookingStatus(id, Booking.BookingStatus.CANCELLED);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkCancellation cancelBookingsForShowtime(Long showtimeId) {
+        if (!showtimeRepository.existsById(showtimeId)) {
+            throw new IllegalArgumentException("Showtime with ID " + showtimeId + " not found");
+        }
+        return bulkBookingCanceller.cancelAll(List.of(showtimeId));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkCancellation cancelBookingsForScreen(Long screenId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Start of the time window must be before its end");
+        }
+        return bulkBookingCanceller.cancelAll(showtimeRepository.findIdsByScreenIdAndStartTimeInRange(screenId, from, to));
+    }
+
     @Override
     public List<Booking> getBookingsByUser(User user) {
         return bookingRepository.findByUser(user);
@@ -94,31 +315,185 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public boolean isSeatAvailableForShowtime(Seat seat, Showtime showtime) {
-        List<Booking> confirmedBookings = bookingRepository.findConfirmedBookingsByShowtimeId(showtime.getId());
+        return seatInventory.get(showtime).isAvailable(seat.getId());
+    }
 
-        for (Booking booking : confirmedBookings) {
-            if (booking.getSeats().contains(seat)) {
-                return false;
-            }
+    @Override
+    public List<SeatView> getAvailableSeatsForShowtime(Showtime showtime) {
+        ShowtimeSeats showtimeSeats = seatInventory.get(showtime);
+
+        // One snapshot of the occupied positions; the layout has every seat's id, row and number by position
+        ScreenLayout layout = showtimeSeats.getLayout();
+        BitSet occupied = showtimeSeats.snapshot();
+        List<SeatView> seats = new ArrayList<>(layout.size() - occupied.cardinality());
+        for (int position = occupied.nextClearBit(0); position < layout.size();
+             position = occupied.nextClearBit(position + 1)) {
+            seats.add(new SeatView(layout.seatIdAt(position), layout.rowAt(position), layout.numberAt(position)));
         }
+        return seats;
+    }
 
-        return true;
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<SeatMap> getSeatMap(Long showtimeId) {
+        // A showtime already in the inventory is answered without touching the database
+        return seatInventory.getIfLoaded(showtimeId)
+                .or(() -> showtimeRepository.findById(showtimeId).map(seatInventory::get))
+                .map(ShowtimeSeats::getSeatMap);
     }
 
     @Override
-    public Set<Seat> getAvailableSeatsForShowtime(Showtime showtime) {
-        // Get all seats in the screen
-        List<Seat> allSeats = seatRepository.findByScreen(showtime.getScreen());
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<Long, Occupancy> getOccupancy(Collection<Long> showtimeIds) {
+        return seatInventory.getOccupancy(showtimeIds);
+    }
 
-        // Get all booked seats for this showtime
-        List<Booking> confirmedBookings = bookingRepository.findConfirmedBookingsByShowtimeId(showtime.getId());
-        Set<Seat> bookedSeats = confirmedBookings.stream()
-                .flatMap(booking -> booking.getSeats().stream())
-                .collect(Collectors.toSet());
+    // Fills in the seats of a batch of bookings with a single query
+    private List<BookingView> withSeats(List<BookingView> bookings) {
+        if (bookings.isEmpty()) {
+            return bookings;
+        }
+        Map<Long, List<SeatView>> seats = new HashMap<>();
+        bookings.forEach(booking -> seats.put(booking.getId(), new ArrayList<>()));
+        for (BookingRepository.BookedSeat seat : bookingRepository.findSeatsByBookingIds(seats.keySet())) {
+            seats.get(seat.getBookingId()).add(new SeatView(seat.getId(), seat.getRow(), seat.getNumber()));
+        }
+        bookings.forEach(booking -> booking.setSeats(seats.get(booking.getId())));
+        return bookings;
+    }
+
+    // Keeps the in-memory inventory in line with a status change
+    private void syncInventory(Booking booking, Booking.BookingStatus previous, Booking.BookingStatus current) {
+        if (previous == current) {
+            return;
+        }
+        if (current == Booking.BookingStatus.PENDING) {
+            throw new IllegalArgumentException("Booking with ID " + booking.getId() + " cannot be put back on hold");
+        }
+        ShowtimeSeats showtimeSeats = seatInventory.get(booking.getShowtime());
+        List<Long> seatIds = seatIds(booking.getSeats());
+        if (current == Booking.BookingStatus.CONFIRMED) {
+            if (!showtimeSeats.tryReserve(seatIds)) {
+                throw new IllegalArgumentException("Seats of booking " + booking.getId() + " are no longer available");
+            }
+            afterRollback(() -> showtimeSeats.release(seatIds));
+            booking.setStatus(current);
+            showtimeSeatRepository.saveAll(booking.getSeats().stream()
+                    .map(seat -> ShowtimeSeat.of(booking, seat))
+                    .collect(Collectors.toList()));
+        } else if (previous == Booking.BookingStatus.CONFIRMED) {
+            showtimeSeatRepository.deleteByBookingId(booking.getId());
+            afterCommit(() -> showtimeSeats.release(seatIds));
+        } else if (bookingRepository.cancelHold(booking.getId()) > 0) {
+            // Whoever moves the booking out of PENDING first, this or the expiry worker, releases the seats
+            showtimeSeatRepository.deleteByBookingId(booking.getId());
+            afterCommit(() -> showtimeSeats.release(seatIds));
+        }
+    }
 
-        // Return all seats that are not in the booked set
-        return allSeats.stream()
-                .filter(seat -> !bookedSeats.contains(seat))
-                .collect(Collectors.toSet());
+    // Hands the booking to the group-commit pipeline and gives the seats back if the write fails or times out
+    private Booking write(Booking booking, ShowtimeSeats showtimeSeats, List<Long> seatIds) {
+        CompletableFuture<Booking> result = bookingWritePipeline.submit(booking);
+        if (booking.getStatus() == Booking.BookingStatus.PENDING) {
+            // Scheduled once the hold is written, so a hold committed after its caller stopped waiting still expires
+            result.thenAccept(seatHoldExpiry::schedule);
+        }
+        try {
+            return result.get(writeTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw writeFailed(booking, showtimeSeats, seatIds, e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (bookingWritePipeline.withdraw(result)) {
+                showtimeSeats.release(seatIds);
+                throw new IllegalStateException("Booking could not be saved in time, please try again");
+            }
+            // Already being written: the seats stay taken unless the write goes on to fail
+            result.whenComplete((saved, failure) -> {
+                if (failure != null) {
+                    writeFailed(booking, showtimeSeats, seatIds, failure);
+                }
+            });
+            throw new IllegalStateException("Booking is still being saved, check your bookings before retrying");
+        }
+    }
+
+    private RuntimeException writeFailed(Booking booking, ShowtimeSeats showtimeSeats, List<Long> seatIds,
+                                         Throwable failure) {
+        if (isSeatConflict(failure)) {
+            // Another node took a seat first; reload the showtime from the ledger instead
+            seatInventory.evictShowtime(booking.getShowtime().getId());
+            return new IllegalArgumentException("One or more seats are not available for the selected showtime");
+        }
+        showtimeSeats.release(seatIds);
+        return failure instanceof RuntimeException cause ? cause : new IllegalStateException(failure);
+    }
+
+    private static boolean isSeatConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase().contains("uk_showtime_seat")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Booking writeHold(Booking booking, ShowtimeSeats showtimeSeats, List<Long> seatIds) {
+        booking.setHoldExpiresAt(LocalDateTime.now().plus(holdTtl, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.MILLIS));
+        return write(booking, showtimeSeats, seatIds);
+    }
+
+    private static Booking newBooking(User user, Showtime showtime, Set<Seat> seats, Booking.BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setShowtime(showtime);
+        booking.setSeats(seats);
+        booking.setBookingTime(LocalDateTime.now());
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private static IllegalArgumentException seatsUnavailable(ShowtimeSeats showtimeSeats, Set<Seat> seats) {
+        String unavailable = seats.stream()
+                .filter(seat -> !showtimeSeats.isAvailable(seat.getId()))
+                .map(seat -> "Seat " + seat.getRow() + seat.getNumber())
+                .findFirst()
+                .orElse("One or more seats");
+        return new IllegalArgumentException(unavailable + " is not available for the selected showtime");
+    }
+
+    private static List<Long> seatIds(Set<Seat> seats) {
+        return seats.stream().map(Seat::getId).collect(Collectors.toList());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
     }
 }
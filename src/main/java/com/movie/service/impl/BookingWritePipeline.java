@@ -0,0 +1,255 @@
+package com.movie.service.impl;
+
+import com.movie.dto.PipelineStats;
+import com.movie.model.Booking;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.ShowtimeSeat;
+import com.movie.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit for new bookings. Request threads hand their booking to a single writer thread,
+ * which persists whatever has queued up within a short window in one transaction, so one commit
+ * and one round of batched inserts is shared by many bookings. Each booking is written together with
+ * its rows in the seat ledger, whose unique index rejects a seat that is already taken.
+ * Whatever goes wrong with a batch fails that batch's writes rather than the writer, and writes still queued when
+ * the pipeline stops are failed too, so no caller is left waiting on a write that will never happen.
+ */
+@Component
+public class BookingWritePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingWritePipeline.class);
+    // Wakes the writer when the pipeline stops; never written
+    private static final PendingWrite STOP = new PendingWrite(null);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${booking.write.max-batch}")
+    private int maxBatch;
+
+    @Value("${booking.write.max-delay}")
+    private long maxDelay;
+
+    @Value("${booking.write.stop-timeout}")
+    private long stopTimeout;
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread writer = new Thread(this::run, "booking-writer");
+    private volatile boolean stopped;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong bookingsWritten = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    @Autowired
+    public BookingWritePipeline(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Lets the writer finish the batch in hand, then fails whatever is still queued
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopped = true;
+        queue.add(STOP);
+        writer.join(stopTimeout);
+        failQueued();
+    }
+
+    public CompletableFuture<Booking> submit(Booking booking) {
+        PendingWrite write = new PendingWrite(booking);
+        queue.add(write);
+        if (stopped) {
+            failQueued();
+        }
+        return write;
+    }
+
+    /**
+     * Takes back a write the writer has not picked up yet, so it is never written; false if it is already being
+     * written or done, in which case its future completes as usual.
+     */
+    public boolean withdraw(CompletableFuture<Booking> result) {
+        if (result instanceof PendingWrite write && write.taken.compareAndSet(false, true)) {
+            queue.remove(write);
+            write.cancel(false);
+            return true;
+        }
+        return false;
+    }
+
+    public PipelineStats getStats() {
+        long flushCount = flushes.get();
+        return PipelineStats.builder()
+                .flushes(flushCount)
+                .failedFlushes(failedFlushes.get())
+                .bookingsWritten(bookingsWritten.get())
+                .averageBatchSize(flushCount == 0 ? 0 : (double) bookingsWritten.get() / flushCount)
+                .maxBatchSize(maxBatchSize.get())
+                .averageFlushMillis(flushCount == 0 ? 0 : flushNanos.get() / 1e6 / flushCount)
+                .maxFlushMillis(maxFlushNanos.get() / 1e6)
+                .queued(queue.size())
+                .build();
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (!stopped) {
+            try {
+                collect(batch);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failStopped(batch);
+                break;
+            } catch (Throwable e) {
+                // Anything the batch throws fails its writes, but never the writer
+                log.error("Booking batch of {} failed", batch.size(), e);
+                batch.forEach(write -> write.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        failQueued();
+    }
+
+    // Waits for the first write, then gathers more until the batch is full or the window closes
+    private void collect(List<PendingWrite> batch) throws InterruptedException {
+        List<PendingWrite> drained = new ArrayList<>(maxBatch);
+        add(batch, queue.take());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        while (batch.size() < maxBatch && !stopped) {
+            queue.drainTo(drained, maxBatch - batch.size());
+            drained.forEach(write -> add(batch, write));
+            drained.clear();
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                break;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            add(batch, next);
+        }
+    }
+
+    // Writes withdrawn by their caller are dropped
+    private static void add(List<PendingWrite> batch, PendingWrite write) {
+        if (write != STOP && write.taken.compareAndSet(false, true)) {
+            batch.add(write);
+        }
+    }
+
+    private void failQueued() {
+        List<PendingWrite> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        failStopped(queued);
+    }
+
+    private static void failStopped(List<PendingWrite> writes) {
+        writes.forEach(write -> write.completeExceptionally(new IllegalStateException("Booking pipeline stopped")));
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingWrite write : batch) {
+                    persist(write.booking);
+                }
+                entityManager.flush();
+            });
+        } catch (RuntimeException e) {
+            // One bad booking must not fail the others: fall back to a transaction per booking
+            failedFlushes.incrementAndGet();
+            log.debug("Booking batch of {} failed, retrying individually", batch.size(), e);
+            batch.forEach(this::writeAlone);
+            return;
+        }
+        record(batch.size(), System.nanoTime() - start);
+        batch.forEach(write -> write.complete(write.booking));
+    }
+
+    private void writeAlone(PendingWrite write) {
+        write.booking.setId(null);
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                persist(write.booking);
+                entityManager.flush();
+            });
+            record(1, System.nanoTime() - start);
+            write.complete(write.booking);
+        } catch (RuntimeException e) {
+            write.completeExceptionally(e);
+        }
+    }
+
+    private void persist(Booking booking) {
+        // A booking made by id refers to its user and showtime through proxies of the request's session
+        if (!Hibernate.isInitialized(booking.getUser())) {
+            booking.setUser(entityManager.getReference(User.class, booking.getUser().getId()));
+        }
+        if (!Hibernate.isInitialized(booking.getShowtime())) {
+            booking.setShowtime(entityManager.getReference(Showtime.class, booking.getShowtime().getId()));
+        }
+        entityManager.persist(booking);
+        for (Seat seat : booking.getSeats()) {
+            entityManager.persist(ShowtimeSeat.of(booking, seat));
+        }
+    }
+
+    private void record(int batchSize, long nanos) {
+        flushes.incrementAndGet();
+        bookingsWritten.addAndGet(batchSize);
+        maxBatchSize.accumulateAndGet(batchSize, Math::max);
+        flushNanos.addAndGet(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // The future handed to the caller, which completes once the booking is written or has failed
+    private static final class PendingWrite extends CompletableFuture<Booking> {
+
+        private final Booking booking;
+        // Set by whichever comes first, the writer picking the write up or its caller withdrawing it
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private PendingWrite(Booking booking) {
+            this.booking = booking;
+        }
+    }
+}
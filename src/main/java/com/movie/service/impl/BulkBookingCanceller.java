@@ -0,0 +1,104 @@
+package com.movie.service.impl;
+
+import com.movie.catalog.CatalogVersions;
+import com.movie.dto.BulkCancellation;
+import com.movie.inventory.SeatInventory;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.ShowtimeSeatRepository;
+import com.movie.repository.ShowtimeSeatRepository.BookedSeat;
+import com.movie.schedule.WhatsOnCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels every active booking of a set of showtimes with set-based statements, one short
+ * transaction per chunk of bookings, so no single transaction holds locks on all of them.
+ * As each chunk commits, exactly the seats whose ledger rows it deleted are released in the inventory, so bookings
+ * made while the cancellation runs keep their seats; the showtimes stay open to new bookings throughout. Once the
+ * database is done, the what's-on listings and cached catalog responses catch up, as showtimes not loaded into the
+ * inventory report no change.
+ */
+@Component
+public class BulkBookingCanceller {
+
+    private final BookingRepository bookingRepository;
+    private final ShowtimeSeatRepository showtimeSeatRepository;
+    private final SeatInventory seatInventory;
+    private final WhatsOnCache whatsOnCache;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.bulk-cancel.chunk-size}")
+    private int chunkSize;
+
+    @Autowired
+    public BulkBookingCanceller(BookingRepository bookingRepository, ShowtimeSeatRepository showtimeSeatRepository,
+                                SeatInventory seatInventory, WhatsOnCache whatsOnCache, CatalogVersions catalogVersions,
+                                PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.showtimeSeatRepository = showtimeSeatRepository;
+        this.seatInventory = seatInventory;
+        this.whatsOnCache = whatsOnCache;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkCancellation cancelAll(List<Long> showtimeIds) {
+        long start = System.nanoTime();
+        int bookings = 0;
+        int seats = 0;
+        int chunks = 0;
+        if (!showtimeIds.isEmpty()) {
+            long afterId = 0;
+            while (true) {
+                // Keyset paging, so every chunk starts where the previous one stopped
+                List<Long> ids = bookingRepository.findActiveIdsByShowtimeIds(showtimeIds, afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Chunk chunk = transactionTemplate.execute(status -> {
+                    // Read before the delete, so only the seats of these bookings are freed in the inventory
+                    List<BookedSeat> ledger = showtimeSeatRepository.findSeatsByBookingIds(ids);
+                    int cancelled = bookingRepository.cancelAllById(ids);
+                    showtimeSeatRepository.deleteByBookingIds(ids);
+                    return new Chunk(cancelled, ledger);
+                });
+                chunk.seats.stream()
+                        .collect(Collectors.groupingBy(BookedSeat::getShowtimeId,
+                                Collectors.mapping(BookedSeat::getSeatId, Collectors.toList())))
+                        .forEach(seatInventory::release);
+                bookings += chunk.bookings;
+                seats += chunk.seats.size();
+                chunks++;
+                afterId = ids.get(ids.size() - 1);
+            }
+            whatsOnCache.recount(showtimeIds);
+            catalogVersions.seatsChanged(showtimeIds);
+        }
+        return BulkCancellation.builder()
+                .showtimeIds(showtimeIds)
+                .bookingsCancelled(bookings)
+                .seatsReleased(seats)
+                .chunks(chunks)
+                .durationMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+
+    private static final class Chunk {
+
+        private final int bookings;
+        private final List<BookedSeat> seats;
+
+        private Chunk(int bookings, List<BookedSeat> seats) {
+            this.bookings = bookings;
+            this.seats = seats;
+        }
+    }
+}
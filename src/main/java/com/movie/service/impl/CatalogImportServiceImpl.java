@@ -0,0 +1,301 @@
+package com.movie.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.catalog.CatalogImportReader;
+import com.movie.catalog.CatalogVersions;
+import com.movie.config.CacheConfig;
+import com.movie.dto.ImportRecord;
+import com.movie.dto.ImportResult;
+import com.movie.inventory.SeatGenerator;
+import com.movie.inventory.SeatInventory;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.schedule.ScreenSchedule;
+import com.movie.schedule.ShowtimeCalendar;
+import com.movie.schedule.WhatsOnCache;
+import com.movie.search.MovieSearchIndex;
+import com.movie.service.CatalogImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads movies, theaters, screens, seats and showtimes from a stream of import records in one transaction, so a
+ * bad line leaves nothing behind. Entities are persisted as they are read, with ids from pooled sequences so the
+ * inserts go out in JDBC batches, and the persistence context is flushed and cleared every
+ * {@code catalog.import.batch-size} rows to keep memory flat however large the import is. Only refs and the
+ * counts are kept for the whole import. The in-memory catalog structures are rebuilt once it has committed.
+ */
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private final MovieRepository movieRepository;
+    private final TheaterRepository theaterRepository;
+    private final ScreenRepository screenRepository;
+    private final ScreenSchedule screenSchedule;
+    private final ShowtimeCalendar showtimeCalendar;
+    private final WhatsOnCache whatsOnCache;
+    private final MovieSearchIndex movieSearchIndex;
+    private final SeatInventory seatInventory;
+    private final CatalogVersions catalogVersions;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${catalog.import.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    public CatalogImportServiceImpl(MovieRepository movieRepository, TheaterRepository theaterRepository,
+                                    ScreenRepository screenRepository, ScreenSchedule screenSchedule,
+                                    ShowtimeCalendar showtimeCalendar, WhatsOnCache whatsOnCache,
+                                    MovieSearchIndex movieSearchIndex, SeatInventory seatInventory,
+                                    CatalogVersions catalogVersions, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.movieRepository = movieRepository;
+        this.theaterRepository = theaterRepository;
+        this.screenRepository = screenRepository;
+        this.screenSchedule = screenSchedule;
+        this.showtimeCalendar = showtimeCalendar;
+        this.whatsOnCache = whatsOnCache;
+        this.movieSearchIndex = movieSearchIndex;
+        this.seatInventory = seatInventory;
+        this.catalogVersions = catalogVersions;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MOVIE_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.THEATER_LIST, allEntries = true)
+    })
+    public ImportResult importNdjson(InputStream in) {
+        try (CatalogImportReader reader = CatalogImportReader.ndjson(in, objectMapper)) {
+            return importRecords(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MOVIE_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.THEATER_LIST, allEntries = true)
+    })
+    public ImportResult importCsv(InputStream in) {
+        try (CatalogImportReader reader = CatalogImportReader.csv(in)) {
+            return importRecords(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportResult importRecords(CatalogImportReader reader) {
+        long start = System.nanoTime();
+        Import imported = transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            Import state = new Import();
+            ImportRecord record;
+            while ((record = next(reader)) != null) {
+                try {
+                    state.add(record);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + reader.line() + ": " + e.getMessage(), e);
+                }
+                if (++state.rows % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            // Nothing of the import stays in a session that outlives the transaction, such as a request's
+            entityManager.flush();
+            entityManager.clear();
+            return state;
+        });
+
+        // Seats added to screens that were already there change their layouts
+        imported.screensWithNewSeats.forEach(seatInventory::evictScreen);
+        if (imported.movies > 0) {
+            movieSearchIndex.rebuild();
+        }
+        if (imported.showtimes > 0) {
+            showtimeCalendar.rebuild();
+            whatsOnCache.clear();
+        }
+        catalogVersions.changed(CatalogVersions.Part.MOVIES, CatalogVersions.Part.THEATERS,
+                CatalogVersions.Part.SHOWTIMES);
+
+        long nanos = Math.max(1, System.nanoTime() - start);
+        return ImportResult.builder()
+                .movies(imported.movies)
+                .theaters(imported.theaters)
+                .screens(imported.screens)
+                .seats(imported.seats)
+                .showtimes(imported.showtimes)
+                .rows(imported.rows)
+                .durationMillis(nanos / 1_000_000)
+                .rowsPerSecond(imported.rows * 1_000_000_000L / nanos)
+                .build();
+    }
+
+    private static ImportRecord next(CatalogImportReader reader) {
+        try {
+            return reader.next();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Line " + reader.line() + ": " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Line " + reader.line() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // What one import has added so far; refs map to ids, and existing ids found by a ref are remembered the same way
+    private final class Import {
+
+        private final Map<String, Long> theaterRefs = new HashMap<>();
+        private final Map<String, Long> screenRefs = new HashMap<>();
+        private final Map<String, Long> movieRefs = new HashMap<>();
+        private final Set<Long> newScreens = new HashSet<>();
+        private final Set<Long> screensWithNewSeats = new HashSet<>();
+        private long rows;
+        private int movies;
+        private int theaters;
+        private int screens;
+        private int seats;
+        private int showtimes;
+
+        private void add(ImportRecord record) {
+            if (record.getType() == null) {
+                throw new IllegalArgumentException("Type is required");
+            }
+            switch (record.getType().toLowerCase()) {
+                case "theater" -> addTheater(record);
+                case "screen" -> addScreen(record);
+                case "seat" -> addSeat(record);
+                case "movie" -> addMovie(record);
+                case "showtime" -> addShowtime(record);
+                default -> throw new IllegalArgumentException("Unknown type " + record.getType());
+            }
+        }
+
+        private void addTheater(ImportRecord record) {
+            Theater theater = new Theater(null, required(record.getName(), "Name"), record.getLocation(), null);
+            entityManager.persist(theater);
+            define(theaterRefs, record.getRef(), theater.getId());
+            theaters++;
+        }
+
+        private void addScreen(ImportRecord record) {
+            Long theaterId = resolve(theaterRefs, record.getTheater(), "theater", theaterRepository);
+            Screen screen = new Screen(null, required(record.getName(), "Name"),
+                    entityManager.getReference(Theater.class, theaterId), null, null);
+            entityManager.persist(screen);
+            define(screenRefs, record.getRef(), screen.getId());
+            newScreens.add(screen.getId());
+            screens++;
+            if (record.getLayout() != null) {
+                for (Seat seat : SeatGenerator.generate(record.getLayout(), screen)) {
+                    entityManager.persist(seat);
+                    seats++;
+                }
+            }
+        }
+
+        private void addSeat(ImportRecord record) {
+            Long screenId = resolve(screenRefs, record.getScreen(), "screen", screenRepository);
+            Seat seat = new Seat(null, required(record.getRow(), "Row"), required(record.getNumber(), "Number"),
+                    entityManager.getReference(Screen.class, screenId), null);
+            entityManager.persist(seat);
+            if (!newScreens.contains(screenId)) {
+                screensWithNewSeats.add(screenId);
+            }
+            seats++;
+        }
+
+        private void addMovie(ImportRecord record) {
+            Movie movie = new Movie(null, required(record.getTitle(), "Title"), record.getDescription(),
+                    record.getDuration(), record.getGenre(), record.getPosterUrl());
+            entityManager.persist(movie);
+            define(movieRefs, record.getRef(), movie.getId());
+            movies++;
+        }
+
+        // Overlaps are checked against the screen schedule, which gives the slots back if the import rolls back
+        private void addShowtime(ImportRecord record) {
+            Long movieId = resolve(movieRefs, record.getMovie(), "movie", movieRepository);
+            Long screenId = resolve(screenRefs, record.getScreen(), "screen", screenRepository);
+            Showtime showtime = new Showtime();
+            showtime.setMovie(entityManager.getReference(Movie.class, movieId));
+            showtime.setScreen(entityManager.getReference(Screen.class, screenId));
+            showtime.setStartTime(required(record.getStartTime(), "Start time"));
+            showtime.setEndTime(required(record.getEndTime(), "End time"));
+            showtime.setPrice(required(record.getPrice(), "Price"));
+            if (!showtime.getStartTime().isBefore(showtime.getEndTime())) {
+                throw new IllegalArgumentException("Start time must be before end time");
+            }
+            entityManager.persist(showtime);
+            screenSchedule.reserve(showtime);
+            showtimes++;
+        }
+
+        private void define(Map<String, Long> refs, String ref, Long id) {
+            if (ref != null && refs.putIfAbsent(ref, id) != null) {
+                throw new IllegalArgumentException("Duplicate ref " + ref);
+            }
+        }
+
+        private Long resolve(Map<String, Long> refs, String ref, String name, CrudRepository<?, Long> repository) {
+            if (ref == null) {
+                throw new IllegalArgumentException("A " + name + " is required");
+            }
+            Long id = refs.get(ref);
+            if (id != null) {
+                return id;
+            }
+            try {
+                id = Long.valueOf(ref);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown " + name + " " + ref);
+            }
+            if (!repository.existsById(id)) {
+                throw new IllegalArgumentException("Unknown " + name + " " + ref);
+            }
+            refs.put(ref, id);
+            return id;
+        }
+
+        private <T> T required(T value, String name) {
+            if (value == null) {
+                throw new IllegalArgumentException(name + " is required");
+            }
+            return value;
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package com.movie.service.impl;
 
+import com.movie.catalog.CatalogVersions;
+import com.movie.config.CacheConfig;
+import com.movie.dto.CursorPage;
 import com.movie.model.Movie;
 import com.movie.repository.MovieRepository;
+import com.movie.schedule.ShowtimeCalendar;
+import com.movie.schedule.WhatsOnCache;
+import com.movie.search.MovieSearchIndex;
 import com.movie.service.MovieService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,39 +26,73 @@ import java.util.Optional;
 public class MovieServiceImpl implements MovieService {
 
     private final MovieRepository movieRepository;
+    private final MovieSearchIndex movieSearchIndex;
+    private final ShowtimeCalendar showtimeCalendar;
+    private final WhatsOnCache whatsOnCache;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
-    public MovieServiceImpl(MovieRepository movieRepository) {
+    public MovieServiceImpl(MovieRepository movieRepository, MovieSearchIndex movieSearchIndex,
+                            ShowtimeCalendar showtimeCalendar, WhatsOnCache whatsOnCache,
+                            CatalogVersions catalogVersions) {
         this.movieRepository = movieRepository;
+        this.movieSearchIndex = movieSearchIndex;
+        this.showtimeCalendar = showtimeCalendar;
+        this.whatsOnCache = whatsOnCache;
+        this.catalogVersions = catalogVersions;
     }
 
     @Override
-    public List<Movie> getAllMovies() {
-        return movieRepository.findAll();
+    @Cacheable(CacheConfig.MOVIE_LIST)
+    public CursorPage<Movie> getMovies(Long after, int size) {
+        int limit = CursorPage.limit(size);
+        List<Movie> movies = movieRepository.findByIdGreaterThanOrderById(after == null ? 0L : after,
+                PageRequest.ofSize(limit));
+        return CursorPage.of(movies, limit, movie -> movie.getId().toString());
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.MOVIES, unless = "#result == null")
     public Optional<Movie> getMovieById(Long id) {
         return movieRepository.findById(id);
     }
 
     @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.MOVIES, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.MOVIE_LIST, allEntries = true))
     public Movie addMovie(Movie movie) {
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        movieSearchIndex.put(saved);
+        catalogVersions.changed(CatalogVersions.Part.MOVIES);
+        return saved;
     }
 
     @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.MOVIES, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.MOVIE_LIST, allEntries = true))
     public Movie updateMovie(Long id, Movie movie) {
         if (movieRepository.existsById(id)) {
             movie.setId(id);
-            return movieRepository.save(movie);
+            Movie saved = movieRepository.save(movie);
+            movieSearchIndex.put(saved);
+            showtimeCalendar.updateMovie(saved);
+            whatsOnCache.clear();
+            catalogVersions.changed(CatalogVersions.Part.MOVIES);
+            return saved;
         }
         throw new IllegalArgumentException("Movie with ID " + id + " not found");
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.MOVIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.MOVIE_LIST, allEntries = true)
+    })
     public void deleteMovie(Long id) {
         movieRepository.deleteById(id);
+        movieSearchIndex.delete(id);
+        whatsOnCache.clear();
+        catalogVersions.changed(CatalogVersions.Part.MOVIES);
     }
 
     @Override
@@ -56,7 +101,8 @@ public class MovieServiceImpl implements MovieService {
     }
 
     @Override
-    public List<Movie> searchMoviesByTitle(String title) {
-        return movieRepository.findByTitleContainingIgnoreCase(title);
+    @Transactional(readOnly = true)
+    public List<Movie> searchMoviesByTitle(String title, int limit) {
+        return movieSearchIndex.search(title, limit);
     }
 }
@@ -0,0 +1,150 @@
+package com.movie.service.impl;
+
+import com.movie.catalog.CatalogVersions;
+import com.movie.dto.LayoutTemplate;
+import com.movie.dto.ScreenRequest;
+import com.movie.dto.ScreenView;
+import com.movie.inventory.ScreenLayout;
+import com.movie.inventory.SeatGenerator;
+import com.movie.inventory.SeatInventory;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Theater;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.schedule.WhatsOnCache;
+import com.movie.service.ScreenService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Creates screens and their seats from a {@link LayoutTemplate}. All seats of a screen are inserted in a single
+ * JDBC batch, and the screen's layout is built from the seats just written and handed to the seat inventory once
+ * the transaction has committed, so it is never read back from the database. A screen's seats can only be
+ * regenerated while no booking references them.
+ */
+@Service
+public class ScreenServiceImpl implements ScreenService {
+
+    private final ScreenRepository screenRepository;
+    private final TheaterRepository theaterRepository;
+    private final SeatRepository seatRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final SeatInventory seatInventory;
+    private final WhatsOnCache whatsOnCache;
+    private final CatalogVersions catalogVersions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ScreenServiceImpl(ScreenRepository screenRepository, TheaterRepository theaterRepository,
+                             SeatRepository seatRepository, ShowtimeRepository showtimeRepository,
+                             SeatInventory seatInventory, WhatsOnCache whatsOnCache,
+                             CatalogVersions catalogVersions) {
+        this.screenRepository = screenRepository;
+        this.theaterRepository = theaterRepository;
+        this.seatRepository = seatRepository;
+        this.showtimeRepository = showtimeRepository;
+        this.seatInventory = seatInventory;
+        this.whatsOnCache = whatsOnCache;
+        this.catalogVersions = catalogVersions;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<ScreenView> getScreen(Long id) {
+        return screenRepository.findById(id)
+                .map(screen -> view(screen, seatInventory.getLayout(screen.getId())));
+    }
+
+    @Override
+    @Transactional
+    public ScreenView createScreen(ScreenRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            throw new IllegalArgumentException("Name is required");
+        }
+        Theater theater = theaterRepository.findById(request.getTheaterId() == null ? -1L : request.getTheaterId())
+                .orElseThrow(() -> new IllegalArgumentException("Theater not found"));
+        Screen screen = new Screen(null, request.getName(), theater, null, null);
+        List<Seat> seats = SeatGenerator.generate(request.getLayout(), screen);
+        entityManager.persist(screen);
+        ScreenLayout layout = writeSeats(screen.getId(), seats);
+        afterCommit(() -> seatInventory.replaceLayout(layout));
+        return view(screen, layout);
+    }
+
+    @Override
+    @Transactional
+    public ScreenView regenerateSeats(Long screenId, LayoutTemplate template) {
+        Screen screen = screenRepository.findById(screenId)
+                .orElseThrow(() -> new IllegalArgumentException("Screen not found"));
+        if (seatRepository.existsBookingOnScreen(screenId)) {
+            throw new IllegalArgumentException("Screen has bookings, so its seats cannot be replaced");
+        }
+        // Checked before anything is deleted; the delete clears the session, so the new seats take a reference
+        SeatGenerator.generate(template, screen);
+        seatRepository.deleteByScreenId(screenId);
+        List<Seat> seats = SeatGenerator.generate(template, entityManager.getReference(Screen.class, screenId));
+        ScreenLayout layout = writeSeats(screenId, seats);
+        List<Long> showtimeIds = showtimeRepository.findIdsByScreenId(screenId);
+        // Showtimes on the screen are reloaded with the new layout and their remaining seats counted again
+        afterCommit(() -> {
+            seatInventory.replaceLayout(layout);
+            whatsOnCache.recount(showtimeIds);
+        });
+        catalogVersions.seatsChanged(showtimeIds);
+        return view(screen, layout);
+    }
+
+    // One JDBC batch for all of the screen's seats; the session is cleared after so they do not outlive the write
+    private ScreenLayout writeSeats(Long screenId, List<Seat> seats) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer batchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(seats.size());
+        try {
+            seats.forEach(entityManager::persist);
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(batchSize);
+        }
+        entityManager.clear();
+        return new ScreenLayout(screenId, seats);
+    }
+
+    private static ScreenView view(Screen screen, ScreenLayout layout) {
+        return ScreenView.builder()
+                .id(screen.getId())
+                .theaterId(screen.getTheater().getId())
+                .name(screen.getName())
+                .capacity(layout.size())
+                .rows(layout.getRows())
+                .categories(layout.getCategories())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
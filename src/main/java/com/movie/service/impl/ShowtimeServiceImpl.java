@@ -1,15 +1,31 @@
 package com.movie.service.impl;
 
+import com.movie.catalog.CatalogVersions;
+import com.movie.dto.CursorPage;
+import com.movie.dto.ScheduleConflict;
+import com.movie.dto.ShowtimeView;
+import com.movie.dto.WhatsOn;
+import com.movie.inventory.SeatInventory;
 import com.movie.model.Movie;
 import com.movie.model.Screen;
 import com.movie.model.Showtime;
 import com.movie.repository.ShowtimeRepository;
+import com.movie.schedule.ScheduleConflictException;
+import com.movie.schedule.ScreenSchedule;
+import com.movie.schedule.ShowtimeCalendar;
+import com.movie.schedule.WhatsOnCache;
 import com.movie.service.ShowtimeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,15 +34,42 @@ import java.util.Optional;
 public class ShowtimeServiceImpl implements ShowtimeService {
 
     private final ShowtimeRepository showtimeRepository;
+    private final ScreenSchedule screenSchedule;
+    private final ShowtimeCalendar showtimeCalendar;
+    private final SeatInventory seatInventory;
+    private final WhatsOnCache whatsOnCache;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
-    public ShowtimeServiceImpl(ShowtimeRepository showtimeRepository) {
+    public ShowtimeServiceImpl(ShowtimeRepository showtimeRepository, ScreenSchedule screenSchedule,
+                               ShowtimeCalendar showtimeCalendar, SeatInventory seatInventory,
+                               WhatsOnCache whatsOnCache, CatalogVersions catalogVersions) {
         this.showtimeRepository = showtimeRepository;
+        this.screenSchedule = screenSchedule;
+        this.showtimeCalendar = showtimeCalendar;
+        this.seatInventory = seatInventory;
+        this.whatsOnCache = whatsOnCache;
+        this.catalogVersions = catalogVersions;
     }
 
+    // Showtimes are listed by start time; the cursor is the start time and id of the last one, e.g. 2025-06-01T18:30,42
     @Override
-    public List<Showtime> getAllShowtimes() {
-        return showtimeRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<ShowtimeView> getShowtimes(String after, int size) {
+        int limit = CursorPage.limit(size);
+        List<ShowtimeView> showtimes;
+        if (after == null) {
+            showtimes = showtimeRepository.findViewsOrderByStartTime(PageRequest.ofSize(limit));
+        } else {
+            int comma = after.lastIndexOf(',');
+            try {
+                showtimes = showtimeRepository.findViewsAfter(LocalDateTime.parse(after.substring(0, comma)),
+                        Long.valueOf(after.substring(comma + 1)), PageRequest.ofSize(limit));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor " + after);
+            }
+        }
+        return CursorPage.of(showtimes, limit, showtime -> showtime.getStartTime() + "," + showtime.getId());
     }
 
     @Override
@@ -34,10 +77,51 @@ public class ShowtimeServiceImpl implements ShowtimeService {
         return showtimeRepository.findById(id);
     }
 
+    // Answered from memory for upcoming showtimes and those loaded into the seat inventory
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean showtimeExists(Long id) {
+        return showtimeCalendar.contains(id) || seatInventory.getIfLoaded(id).isPresent()
+                || showtimeRepository.existsById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ShowtimeView> getShowtimeView(Long id) {
+        return showtimeRepository.findViewById(id);
+    }
+
     @Override
     public Showtime addShowtime(Showtime showtime) {
         validateShowtime(showtime);
-        return showtimeRepository.save(showtime);
+        Showtime saved = showtimeRepository.save(showtime);
+        screenSchedule.reserve(saved);
+        showtimeCalendar.refresh(List.of(saved.getId()));
+        whatsOnCache.refresh(List.of(saved.getId()));
+        catalogVersions.changed(CatalogVersions.Part.SHOWTIMES);
+        return saved;
+    }
+
+    // All or nothing: nothing is saved if any showtime conflicts with another one or with the existing schedule
+    @Override
+    public List<Showtime> addShowtimes(List<Showtime> showtimes) {
+        List<ScheduleConflict> conflicts = screenSchedule.validate(showtimes);
+        if (!conflicts.isEmpty()) {
+            throw new ScheduleConflictException(conflicts);
+        }
+        List<Showtime> saved = showtimeRepository.saveAll(showtimes);
+        saved.forEach(screenSchedule::reserve);
+        List<Long> ids = saved.stream().map(Showtime::getId).toList();
+        showtimeCalendar.refresh(ids);
+        whatsOnCache.refresh(ids);
+        catalogVersions.changed(CatalogVersions.Part.SHOWTIMES);
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ScheduleConflict> validateSchedule(List<Showtime> showtimes) {
+        return screenSchedule.validate(showtimes);
     }
 
     @Override
@@ -45,7 +129,12 @@ public class ShowtimeServiceImpl implements ShowtimeService {
         if (showtimeRepository.existsById(id)) {
             validateShowtime(showtime);
             showtime.setId(id);
-            return showtimeRepository.save(showtime);
+            Showtime saved = showtimeRepository.save(showtime);
+            screenSchedule.reserve(saved);
+            showtimeCalendar.refresh(List.of(id));
+            whatsOnCache.refresh(List.of(id));
+            catalogVersions.changed(CatalogVersions.Part.SHOWTIMES);
+            return saved;
         }
         throw new IllegalArgumentException("Showtime with ID " + id + " not found");
     }
@@ -53,11 +142,17 @@ public class ShowtimeServiceImpl implements ShowtimeService {
     @Override
     public void deleteShowtime(Long id) {
         showtimeRepository.deleteById(id);
+        screenSchedule.release(id);
+        showtimeCalendar.refresh(List.of(id));
+        whatsOnCache.refresh(List.of(id));
+        catalogVersions.showtimesDeleted(List.of(id));
+        afterCommit(() -> seatInventory.evictShowtime(id));
     }
 
     @Override
-    public List<Showtime> getShowtimesByMovie(Movie movie) {
-        return showtimeRepository.findByMovie(movie);
+    @Transactional(readOnly = true)
+    public List<ShowtimeView> getShowtimesByMovie(Movie movie) {
+        return showtimeRepository.findViewsByMovieId(movie.getId());
     }
 
     @Override
@@ -66,21 +161,47 @@ public class ShowtimeServiceImpl implements ShowtimeService {
     }
 
     @Override
-    public List<Showtime> getShowtimesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return showtimeRepository.findByStartTimeAfterAndStartTimeBefore(startDate, endDate);
+    @Transactional(readOnly = true)
+    public List<ShowtimeView> getShowtimesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        // Only ranges reaching back before today go to the database
+        return showtimeCalendar.findStartingBetween(startDate, endDate)
+                .orElseGet(() -> showtimeRepository.findViewsStartingBetween(startDate, endDate));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShowtimeView> getUpcomingShowtimesByMovie(Movie movie) {
+        LocalDateTime now = LocalDateTime.now();
+        return showtimeCalendar.findByMovieStartingAfter(movie.getId(), now)
+                .orElseGet(() -> showtimeRepository.findViewsByMovieIdStartingAfter(movie.getId(), now));
     }
 
     @Override
-    public List<Showtime> getUpcomingShowtimesByMovie(Movie movie) {
-        return showtimeRepository.findByMovieAndStartTimeAfter(movie, LocalDateTime.now());
+    @Transactional(readOnly = true)
+    public WhatsOn getWhatsOn(LocalDate date, String location) {
+        return whatsOnCache.get(date, location);
     }
 
+    // Overlaps with other showtimes on the screen are checked by the screen schedule once the showtime is saved
     private void validateShowtime(Showtime showtime) {
+        if (showtime.getScreen() == null || showtime.getScreen().getId() == null) {
+            throw new IllegalArgumentException("Screen is required");
+        }
         if (showtime.getStartTime().isAfter(showtime.getEndTime())) {
             throw new IllegalArgumentException("Start time must be before end time");
         }
+    }
 
-        // Additional validation logic could be added here
-        // For example, check for overlapping showtimes in the same screen
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -1,9 +1,21 @@
 package com.movie.service.impl;
 
+import com.movie.catalog.CatalogVersions;
+import com.movie.config.CacheConfig;
+import com.movie.dto.CursorPage;
 import com.movie.model.Theater;
+import com.movie.repository.ShowtimeRepository;
 import com.movie.repository.TheaterRepository;
+import com.movie.schedule.ScreenSchedule;
+import com.movie.schedule.ShowtimeCalendar;
+import com.movie.schedule.WhatsOnCache;
 import com.movie.service.TheaterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,39 +27,77 @@ import java.util.Optional;
 public class TheaterServiceImpl implements TheaterService {
 
     private final TheaterRepository theaterRepository;
+    private final ShowtimeRepository showtimeRepository;
+    private final ScreenSchedule screenSchedule;
+    private final ShowtimeCalendar showtimeCalendar;
+    private final WhatsOnCache whatsOnCache;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
-    public TheaterServiceImpl(TheaterRepository theaterRepository) {
+    public TheaterServiceImpl(TheaterRepository theaterRepository, ShowtimeRepository showtimeRepository,
+                              ScreenSchedule screenSchedule, ShowtimeCalendar showtimeCalendar,
+                              WhatsOnCache whatsOnCache, CatalogVersions catalogVersions) {
         this.theaterRepository = theaterRepository;
+        this.showtimeRepository = showtimeRepository;
+        this.screenSchedule = screenSchedule;
+        this.showtimeCalendar = showtimeCalendar;
+        this.whatsOnCache = whatsOnCache;
+        this.catalogVersions = catalogVersions;
     }
 
     @Override
-    public List<Theater> getAllTheaters() {
-        return theaterRepository.findAll();
+    @Cacheable(CacheConfig.THEATER_LIST)
+    public CursorPage<Theater> getTheaters(Long after, int size) {
+        int limit = CursorPage.limit(size);
+        List<Theater> theaters = theaterRepository.findByIdGreaterThanOrderById(after == null ? 0L : after,
+                PageRequest.ofSize(limit));
+        return CursorPage.of(theaters, limit, theater -> theater.getId().toString());
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.THEATERS, unless = "#result == null")
     public Optional<Theater> getTheaterById(Long id) {
         return theaterRepository.findById(id);
     }
 
     @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.THEATERS, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.THEATER_LIST, allEntries = true))
     public Theater addTheater(Theater theater) {
-        return theaterRepository.save(theater);
+        Theater saved = theaterRepository.save(theater);
+        catalogVersions.changed(CatalogVersions.Part.THEATERS);
+        return saved;
     }
 
     @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.THEATERS, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.THEATER_LIST, allEntries = true))
     public Theater updateTheater(Long id, Theater theater) {
         if (theaterRepository.existsById(id)) {
             theater.setId(id);
-            return theaterRepository.save(theater);
+            Theater saved = theaterRepository.save(theater);
+            showtimeCalendar.updateTheater(saved);
+            whatsOnCache.clear();
+            catalogVersions.changed(CatalogVersions.Part.THEATERS);
+            return saved;
         }
         throw new IllegalArgumentException("Theater with ID " + id + " not found");
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.THEATERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.THEATER_LIST, allEntries = true)
+    })
     public void deleteTheater(Long id) {
+        // The delete cascades to the theater's screens and showtimes, so they are collected first
+        List<Long> showtimeIds = showtimeRepository.findIdsByTheaterId(id);
         theaterRepository.deleteById(id);
+        showtimeIds.forEach(screenSchedule::release);
+        showtimeCalendar.refresh(showtimeIds);
+        whatsOnCache.clear();
+        catalogVersions.changed(CatalogVersions.Part.THEATERS);
+        catalogVersions.showtimesDeleted(showtimeIds);
     }
 
     @Override
@@ -0,0 +1,238 @@
+package com.movie.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.dto.SeatDelta;
+import com.movie.dto.SeatMap;
+import com.movie.inventory.SeatInventory;
+import com.movie.service.BookingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes seat availability to browsers over server-sent events. Each subscriber first gets a
+ * snapshot of the seat map, then only the deltas reported by the seat inventory. A showtime has one
+ * shared stream: every delta is serialized once and written to all of its subscribers, and no
+ * subscriber ever causes a database query of its own. A stream is dropped once its last subscriber has left.
+ */
+@Component
+public class SeatEventPublisher {
+
+    private final SeatInventory seatInventory;
+    private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${booking.stream.timeout}")
+    private long timeout;
+
+    @Value("${booking.stream.threads}")
+    private int threads;
+
+    private final Map<Long, ShowtimeStream> streams = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @Autowired
+    public SeatEventPublisher(SeatInventory seatInventory, BookingService bookingService, ObjectMapper objectMapper) {
+        this.seatInventory = seatInventory;
+        this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "seat-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        seatInventory.addListener(this::onDelta);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public Optional<SseEmitter> subscribe(Long showtimeId) {
+        // Loads the showtime into the inventory, so later snapshots come from memory
+        if (bookingService.getSeatMap(showtimeId).isEmpty()) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        // Joined inside compute, so a stream being dropped as idle can never take a new subscriber with it
+        ShowtimeStream stream = streams.compute(showtimeId, (id, existing) -> {
+            ShowtimeStream joined = existing != null ? existing : new ShowtimeStream(id);
+            joined.join(emitter);
+            return joined;
+        });
+        stream.schedule();
+        return Optional.of(emitter);
+    }
+
+    private void onDelta(SeatDelta delta) {
+        ShowtimeStream stream = streams.get(delta.getShowtimeId());
+        if (stream != null) {
+            stream.offer(delta);
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> event(String name, long version, Object data) {
+        try {
+            return SseEmitter.event()
+                    .id(String.valueOf(version))
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize seat event", e);
+        }
+    }
+
+    /**
+     * Subscribers of one showtime. Deltas and new subscribers are queued by any thread and handled by
+     * at most one executor task at a time, which keeps every subscriber's events in version order.
+     */
+    private final class ShowtimeStream {
+
+        private final Long showtimeId;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final Queue<SeatDelta> deltas = new ConcurrentLinkedQueue<>();
+        private final Queue<SseEmitter> joining = new ConcurrentLinkedQueue<>();
+        // Subscribers joined but not yet added, counted until after their snapshot was taken
+        private final AtomicInteger welcoming = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private long snapshotVersion = -1;
+        private Set<ResponseBodyEmitter.DataWithMediaType> snapshotEvent;
+
+        private ShowtimeStream(Long showtimeId) {
+            this.showtimeId = showtimeId;
+        }
+
+        private void join(SseEmitter emitter) {
+            welcoming.incrementAndGet();
+            joining.add(emitter);
+        }
+
+        private void offer(SeatDelta delta) {
+            // Nobody listening: a later subscriber starts from a fresh snapshot anyway
+            if (isIdle()) {
+                return;
+            }
+            deltas.add(delta);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SeatDelta delta;
+                while ((delta = deltas.poll()) != null) {
+                    broadcast(delta);
+                }
+                SseEmitter emitter;
+                while ((emitter = joining.poll()) != null) {
+                    welcome(emitter);
+                }
+                scheduled.set(false);
+            } while ((!deltas.isEmpty() || !joining.isEmpty()) && scheduled.compareAndSet(false, true));
+        }
+
+        private void broadcast(SeatDelta delta) {
+            Set<ResponseBodyEmitter.DataWithMediaType> event = null;
+            for (Subscriber subscriber : subscribers) {
+                // Already contained in the snapshot this subscriber started from
+                if (delta.getVersion() <= subscriber.fromVersion) {
+                    continue;
+                }
+                if (event == null) {
+                    event = event("delta", delta.getVersion(), delta);
+                }
+                send(subscriber, event);
+            }
+        }
+
+        // Deltas published while the snapshot is taken are kept, as the subscriber still counts as welcoming
+        private void welcome(SseEmitter emitter) {
+            Subscriber subscriber;
+            try {
+                Optional<SeatMap> seatMap = bookingService.getSeatMap(showtimeId);
+                if (seatMap.isEmpty()) {
+                    emitter.complete();
+                    return;
+                }
+                long version = seatMap.get().getVersion();
+                if (version != snapshotVersion) {
+                    snapshotEvent = event("snapshot", version, seatMap.get());
+                    snapshotVersion = version;
+                }
+                subscriber = new Subscriber(emitter, version);
+                emitter.onCompletion(() -> leave(subscriber));
+                emitter.onTimeout(() -> leave(subscriber));
+                emitter.onError(error -> leave(subscriber));
+                subscribers.add(subscriber);
+            } finally {
+                welcoming.decrementAndGet();
+                dropIfIdle();
+            }
+            send(subscriber, snapshotEvent);
+        }
+
+        private void send(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                leave(subscriber);
+            }
+        }
+
+        private void leave(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            dropIfIdle();
+        }
+
+        private boolean isIdle() {
+            return subscribers.isEmpty() && welcoming.get() == 0;
+        }
+
+        private void dropIfIdle() {
+            streams.computeIfPresent(showtimeId, (id, stream) -> stream == this && isIdle() ? null : stream);
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final long fromVersion;
+
+        private Subscriber(SseEmitter emitter, long fromVersion) {
+            this.emitter = emitter;
+            this.fromVersion = fromVersion;
+        }
+    }
+}
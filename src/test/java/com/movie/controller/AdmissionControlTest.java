@@ -0,0 +1,129 @@
+package com.movie.controller;
+
+import com.movie.admission.Admission;
+import com.movie.admission.AdmissionControl;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.ShowtimeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The waiting room only keeps a lane for a showtime that exists and only while someone is in it or waiting for
+ * it, and a queue ticket only admits the user it was issued to.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "booking.admission.max-concurrent=1"
+})
+@AutoConfigureMockMvc
+@WithMockUser(username = AdmissionControlTest.USERNAME)
+class AdmissionControlTest {
+
+    static final String USERNAME = "admission-user";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private AdmissionControl admissionControl;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void unknownShowtimeGetsNoLane() throws Exception {
+        long unknown = 987_654_321L;
+        mockMvc.perform(post("/api/bookings/showtime/{id}", unknown)
+                        .contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(status().isNotFound());
+        assertFalse(lanes().containsKey(unknown));
+    }
+
+    @Test
+    void laneIsDroppedOnceTheBookingIsDone() throws Exception {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .email(USERNAME + "@example.com")
+                    .password("secret")
+                    .roles(Set.of("ROLE_USER"))
+                    .build());
+        }
+        Theater theater = theaterRepository.save(new Theater(null, "Admission Theater", "Northside", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        Seat seat = seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Movie movie = movieRepository.save(new Movie(null, "Admission Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(8));
+        showtime.setEndTime(LocalDateTime.now().plusDays(8).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtime = showtimeService.addShowtime(showtime);
+
+        mockMvc.perform(post("/api/bookings/showtime/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + seat.getId() + "]"))
+                .andExpect(status().isCreated());
+        assertFalse(lanes().containsKey(showtime.getId()));
+    }
+
+    @Test
+    void ticketOnlyAdmitsItsOwnUser() throws Exception {
+        Long showtimeId = 987_654_322L;
+        Admission first = admissionControl.enter(showtimeId, null, "alice");
+        assertTrue(first.isAdmitted());
+        Admission queued = admissionControl.enter(showtimeId, null, "bob");
+        assertFalse(queued.isAdmitted());
+        String token = queued.getQueueStatus().getToken();
+        first.close();
+
+        // Bob's ticket is now admitted, but nobody else may use it or see it
+        Admission stolen = admissionControl.enter(showtimeId, token, "mallory");
+        assertFalse(stolen.isAdmitted());
+        assertTrue(admissionControl.getStatus(token, "mallory").isEmpty());
+        mockMvc.perform(get("/api/bookings/queue/{token}", token)).andExpect(status().isNotFound());
+        assertTrue(admissionControl.getStatus(token, "bob").orElseThrow().isAdmitted());
+
+        try (Admission admitted = admissionControl.enter(showtimeId, token, "bob")) {
+            assertTrue(admitted.isAdmitted());
+        }
+        // Mallory is still queued behind Bob, so the lane stays until she comes back or her ticket expires
+        assertTrue(lanes().containsKey(showtimeId));
+        try (Admission admitted = admissionControl.enter(showtimeId, stolen.getQueueStatus().getToken(), "mallory")) {
+            assertTrue(admitted.isAdmitted());
+        }
+        assertFalse(lanes().containsKey(showtimeId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> lanes() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(admissionControl, "lanes");
+    }
+}
@@ -0,0 +1,171 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Movie;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.ShowtimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Best-available booking takes the free block closest to the middle of the screen, slid off-center when only a
+ * side block fits; released seats join the free runs next to them, and a request no run can hold is a conflict.
+ * Each test gets a screen of its own built from a layout template.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser(username = BestAvailableTest.USERNAME, roles = {"USER", "ADMIN"})
+class BestAvailableTest {
+
+    static final String USERNAME = "best-available-user";
+    private static final AtomicInteger DAYS = new AtomicInteger(900);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Theater theater;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .email(USERNAME + "@example.com")
+                    .password("secret")
+                    .roles(Set.of("ROLE_USER", "ROLE_ADMIN"))
+                    .build());
+        }
+        theater = theaterRepository.save(new Theater(null, "Best Available Theater", "Westend", null));
+    }
+
+    @Test
+    void blockIsSlidOffCenterWhenOnlyASideRunFits() throws Exception {
+        JsonNode screen = createScreen("{\"rows\":1,\"seatsPerRow\":10}");
+        Long showtimeId = showtime(screen);
+        // Leaves runs of seats 1-2 and 7-10
+        book(showtimeId, seatIds(screen, 0, 2, 3, 4, 5));
+
+        assertEquals(List.of(7, 8, 9), numbers(bestAvailable(showtimeId, 3).andExpect(status().isCreated())));
+    }
+
+    @Test
+    void releasedSeatsMergeWithTheRunsBesideThem() throws Exception {
+        JsonNode screen = createScreen("{\"rows\":1,\"seatsPerRow\":10}");
+        Long showtimeId = showtime(screen);
+        long middle = book(showtimeId, seatIds(screen, 0, 2, 3, 4, 5));
+        book(showtimeId, seatIds(screen, 0, 7));
+        bestAvailable(showtimeId, 5).andExpect(status().isConflict());
+
+        mockMvc.perform(put("/api/bookings/{id}/cancel", middle)).andExpect(status().isOk());
+        // Seats 1-7 only fit once the freed seats joined the runs on both sides of them
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7),
+                numbers(bestAvailable(showtimeId, 7).andExpect(status().isCreated())));
+    }
+
+    @Test
+    void countLargerThanAnyRunIsAConflict() throws Exception {
+        // Ten free seats in a row, but the aisle splits them into two blocks of five
+        JsonNode screen = createScreen("{\"rows\":2,\"seatsPerRow\":10,\"aisles\":[5]}");
+        Long showtimeId = showtime(screen);
+
+        bestAvailable(showtimeId, 6).andExpect(status().isConflict());
+        bestAvailable(showtimeId, 11).andExpect(status().isConflict());
+        assertEquals(List.of(1, 2, 3, 4, 5), numbers(bestAvailable(showtimeId, 5).andExpect(status().isCreated())));
+    }
+
+    @Test
+    void middleRowIsPreferredOverTheFront() throws Exception {
+        JsonNode screen = createScreen("{\"rows\":5,\"seatsPerRow\":6}");
+        Long showtimeId = showtime(screen);
+
+        JsonNode booking = json(bestAvailable(showtimeId, 2).andExpect(status().isCreated()));
+        assertEquals("C", booking.at("/seats/0/row").asText());
+        assertEquals(List.of(3, 4), numbers(booking));
+    }
+
+    private JsonNode createScreen(String layout) throws Exception {
+        String body = mockMvc.perform(post("/api/screens").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"theaterId\":" + theater.getId() + ",\"name\":\"Screen\",\"layout\":" + layout + "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private Long showtime(JsonNode screen) {
+        Movie movie = movieRepository.save(new Movie(null, "Best Available Movie", "", 100, "Drama", null));
+        LocalDateTime start = LocalDateTime.now().plusDays(DAYS.getAndIncrement()).withHour(20).withMinute(0);
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screenRepository.findById(screen.get("id").asLong()).orElseThrow());
+        showtime.setStartTime(start);
+        showtime.setEndTime(start.plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        return showtimeService.addShowtime(showtime).getId();
+    }
+
+    private static List<Long> seatIds(JsonNode screen, int row, int... positions) {
+        return IntStream.of(positions)
+                .mapToObj(position -> screen.at("/rows/" + row + "/seatIds/" + position).asLong())
+                .toList();
+    }
+
+    private long book(Long showtimeId, List<Long> seatIds) throws Exception {
+        String body = mockMvc.perform(post("/api/bookings/showtime/{id}", showtimeId)
+                        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(seatIds)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private ResultActions bestAvailable(Long showtimeId, int count) throws Exception {
+        return mockMvc.perform(post("/api/bookings/showtime/{id}/best-available", showtimeId)
+                .param("count", String.valueOf(count)));
+    }
+
+    private JsonNode json(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+
+    private List<Integer> numbers(ResultActions result) throws Exception {
+        return numbers(json(result));
+    }
+
+    private static List<Integer> numbers(JsonNode booking) {
+        List<Integer> numbers = new ArrayList<>();
+        booking.get("seats").forEach(seat -> numbers.add(seat.get("number").asInt()));
+        return numbers.stream().sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The booking export lists every booking once, in id order and with all of its seats, however many bookings there
+ * are; more than one chunk of bookings with several seats each are exported here.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser(roles = {"USER", "ADMIN"})
+class BookingExportTest {
+
+    private static final String USERNAME = "export-user";
+    private static final int BOOKINGS = 1201;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void everyBookingIsExportedOnceWithAllItsSeats() throws Exception {
+        User user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+        Theater theater = theaterRepository.save(new Theater(null, "Export Theater", "Mill Lane", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        Set<Seat> seats = new HashSet<>();
+        for (int i = 1; i <= 3; i++) {
+            seats.add(seatRepository.save(new Seat(null, "A", i, screen, null)));
+        }
+        Movie movie = movieRepository.save(new Movie(null, "Export Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(12));
+        showtime.setEndTime(LocalDateTime.now().plusDays(12).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtime = showtimeRepository.save(showtime);
+        // Written straight to the table; the export reads bookings and their seats, not the seat ledger
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setUser(user);
+            booking.setShowtime(showtime);
+            booking.setSeats(seats);
+            booking.setBookingTime(LocalDateTime.now());
+            booking.setStatus(Booking.BookingStatus.CANCELLED);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+
+        MvcResult started = mockMvc.perform(get("/api/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        long previous = 0;
+        int exported = 0;
+        for (JsonNode booking : objectMapper.readTree(body)) {
+            assertTrue(booking.get("id").asLong() > previous, "Bookings out of order or repeated");
+            previous = booking.get("id").asLong();
+            if (booking.get("showtimeId").asLong() == showtime.getId()) {
+                assertEquals(3, booking.get("seats").size(), booking.toString());
+                exported++;
+            }
+        }
+        assertEquals(BOOKINGS, exported);
+    }
+}
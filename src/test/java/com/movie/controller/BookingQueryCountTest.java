@@ -0,0 +1,140 @@
+package com.movie.controller;
+
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Booking seats through the API must take the same SQL statements however many seats are booked: the user's id,
+ * the requested seats checked against the showtime, and one insert each for the booking, its seats and the seat
+ * ledger. Ids come from pooled sequences, whose occasional fetches are not counted.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.movie.controller.BookingQueryCountTest$Recorder"
+})
+@AutoConfigureMockMvc
+@WithMockUser(username = BookingQueryCountTest.USERNAME)
+class BookingQueryCountTest {
+
+    static final String USERNAME = "booking-count-user";
+    private static final int SEATS = 30;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Showtime showtime;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .email(USERNAME + "@example.com")
+                    .password("secret")
+                    .roles(Set.of("ROLE_USER"))
+                    .build());
+        }
+        Theater theater = theaterRepository.save(new Theater(null, "Booking Count Theater", "Downtown", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seats = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            seats.add(seatRepository.save(new Seat(null, String.valueOf((char) ('A' + i / 10)), i % 10 + 1, screen, null)));
+        }
+        Movie movie = movieRepository.save(new Movie(null, "Booking Count", "", 120, "Drama", null));
+        showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(2));
+        showtime.setEndTime(LocalDateTime.now().plusDays(2).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtime = showtimeRepository.save(showtime);
+
+        // Loads the showtime into the seat inventory, which happens once per showtime
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtime.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void bookingOneSeat() throws Exception {
+        assertStatements(book(seats.subList(0, 1), "/api/bookings/showtime/{showtimeId}"));
+    }
+
+    @Test
+    void bookingManySeats() throws Exception {
+        assertStatements(book(seats.subList(0, 12), "/api/bookings/showtime/{showtimeId}"));
+    }
+
+    @Test
+    void holdingManySeats() throws Exception {
+        assertStatements(book(seats.subList(10, 20), "/api/bookings/showtime/{showtimeId}/hold"));
+    }
+
+    private List<String> book(List<Seat> requested, String path) throws Exception {
+        String body = requested.stream().map(seat -> seat.getId().toString()).collect(Collectors.joining(",", "[", "]"));
+        Recorder.statements.clear();
+        mockMvc.perform(post(path, showtime.getId()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.seats.length()").value(requested.size()));
+        return Recorder.statements.stream()
+                .map(sql -> sql.toLowerCase().replaceAll("\\s+", " ").trim())
+                .filter(sql -> !sql.contains("next value for"))
+                .toList();
+    }
+
+    private static void assertStatements(List<String> statements) {
+        assertEquals(5, statements.size(), String.join("\n", statements));
+        assertEquals(2, statements.stream().filter(sql -> sql.startsWith("select")).count());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into bookings ")).count());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into booking_seat ")).count());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into showtime_seat ")).count());
+    }
+
+    public static class Recorder implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.movie.controller;
+
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cancelling all bookings of a showtime frees exactly the seats of the bookings it cancelled; a booking made once
+ * the cancellation has read its last chunk keeps its seats in the inventory as well as in the database.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "booking.bulk-cancel.chunk-size=1"
+})
+@AutoConfigureMockMvc
+@WithMockUser(username = BulkCancellationTest.USERNAME, roles = {"USER", "ADMIN"})
+class BulkCancellationTest {
+
+    static final String USERNAME = "bulk-cancel-admin";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private BookingService bookingService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+    @MockitoSpyBean private BookingRepository bookingRepository;
+
+    private User user;
+    private Showtime showtime;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER", "ROLE_ADMIN"))
+                .build()));
+        Theater theater = theaterRepository.save(new Theater(null, "Bulk Cancel Theater", "Old Town", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seats = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            seats.add(seatRepository.save(new Seat(null, "A", i, screen, null)));
+        }
+        Movie movie = movieRepository.save(new Movie(null, "Bulk Cancel Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(6));
+        showtime.setEndTime(LocalDateTime.now().plusDays(6).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        this.showtime = showtimeRepository.save(showtime);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bookingMadeAfterTheScanKeepsItsSeats() throws Exception {
+        bookingService.createBooking(user, showtime, Set.of(seats.get(0), seats.get(1)));
+        bookingService.createBooking(user, showtime, Set.of(seats.get(2), seats.get(3)));
+        Seat late = seats.get(5);
+        AtomicReference<Booking> lateBooking = new AtomicReference<>();
+        // The booking lands once the last chunk has been read, before the cancellation finishes; the spy of the
+        // repository proxy forwards to it through its default answer
+        Answer<?> repository = mockingDetails(bookingRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            List<Long> ids = (List<Long>) repository.answer(invocation);
+            if (ids.isEmpty() && lateBooking.get() == null) {
+                lateBooking.set(bookingService.createBooking(user, showtime, Set.of(late)));
+            }
+            return ids;
+        }).when(bookingRepository).findActiveIdsByShowtimeIds(any(Collection.class), anyLong(), any(Pageable.class));
+
+        mockMvc.perform(post("/api/admin/showtimes/{id}/cancel-bookings", showtime.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingsCancelled").value(2))
+                .andExpect(jsonPath("$.seatsReleased").value(4))
+                .andExpect(jsonPath("$.chunks").value(2));
+
+        assertEquals(Booking.BookingStatus.CONFIRMED,
+                bookingRepository.findById(lateBooking.get().getId()).orElseThrow().getStatus());
+        mockMvc.perform(get("/api/showtimes/{id}/seats", showtime.getId()))
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[*].id").value(not(hasItem(late.getId().intValue()))));
+        mockMvc.perform(post("/api/bookings/showtime/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + late.getId() + "]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings/showtime/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + seats.get(0).getId() + "]"))
+                .andExpect(status().isCreated());
+    }
+}
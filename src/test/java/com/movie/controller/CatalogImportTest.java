@@ -0,0 +1,88 @@
+package com.movie.controller;
+
+import com.movie.model.Screen;
+import com.movie.model.Theater;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Imports load every record or, when a line is invalid, none of them.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "catalog.import.batch-size=7"})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class CatalogImportTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+
+    @Test
+    void ndjsonImportLinksRecordsByRef() throws Exception {
+        StringBuilder body = new StringBuilder("""
+                {"type":"theater","ref":"t","name":"Imported Theater","location":"Harbor"}
+                {"type":"screen","ref":"t/1","theater":"t","name":"Screen 1"}
+                {"type":"screen","theater":"t","name":"Screen 2","layout":{"rows":2,"seatsPerRow":3}}
+                {"type":"movie","ref":"m","title":"Imported Movie","duration":95,"genre":"Drama"}
+                """);
+        for (int i = 1; i <= 20; i++) {
+            body.append("{\"type\":\"seat\",\"screen\":\"t/1\",\"row\":\"A\",\"number\":").append(i).append("}\n");
+        }
+        body.append("""
+                {"type":"showtime","movie":"m","screen":"t/1","startTime":"2031-03-01T18:00","endTime":"2031-03-01T20:00","price":11.5}
+                """);
+
+        mockMvc.perform(post("/api/admin/import").contentType(MediaType.APPLICATION_NDJSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.theaters").value(1))
+                .andExpect(jsonPath("$.screens").value(2))
+                .andExpect(jsonPath("$.seats").value(26))
+                .andExpect(jsonPath("$.showtimes").value(1))
+                .andExpect(jsonPath("$.rows").value(25));
+
+        Theater theater = theaterRepository.findByLocationContainingIgnoreCase("Harbor").get(0);
+        Screen screen = screenRepository.findByTheater(theater).stream()
+                .filter(candidate -> candidate.getName().equals("Screen 1"))
+                .findFirst().orElseThrow();
+        Long showtimeId = showtimeRepository.findByScreen(screen).get(0).getId();
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtimeId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows[0].seatIds.length()").value(20));
+        mockMvc.perform(get("/api/movies/search").param("title", "Imported Movie"))
+                .andExpect(jsonPath("$[0].title").value("Imported Movie"));
+    }
+
+    @Test
+    void csvImportRollsBackOnAnInvalidLine() throws Exception {
+        long theaters = theaterRepository.count();
+        String body = """
+                theater,a,"The ""Quoted"", Hall",Uptown
+                screen,a/1,a,One
+                seat,a/1,A,1
+
+                seat,missing,A,2
+                """;
+
+        mockMvc.perform(post("/api/admin/import").contentType("text/csv").content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("Line 5: Unknown screen missing")));
+        assertEquals(theaters, theaterRepository.count());
+    }
+}
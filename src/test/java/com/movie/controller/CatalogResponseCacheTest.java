@@ -0,0 +1,206 @@
+package com.movie.controller;
+
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.BookingService;
+import com.movie.service.MovieService;
+import com.movie.service.ShowtimeService;
+import com.movie.service.TheaterService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Catalog responses are served from memory, with no SQL, until a write changes what they were built from, and
+ * are answered with 304 when the client already has them.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class CatalogResponseCacheTest {
+
+    private static final String USERNAME = "response-cache-user";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private MovieService movieService;
+    @Autowired private TheaterService theaterService;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private BookingService bookingService;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Movie movie;
+    private Showtime showtime;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() {
+        Theater theater = theaterService.addTheater(new Theater(null, "Response Cache Theater", "Downtown", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seats = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            seats.add(seatRepository.save(new Seat(null, "A", i + 1, screen, null)));
+        }
+        // A genre of its own, read with a query every time, and a description long enough to be worth compressing
+        movie = movieService.addMovie(new Movie(null, "Response Cache", "A film. ".repeat(100), 120,
+                "Genre " + System.nanoTime(), null));
+        showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(3));
+        showtime.setEndTime(LocalDateTime.now().plusDays(3).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtime = showtimeService.addShowtime(showtime);
+    }
+
+    @Test
+    void movieIsServedFromMemoryUntilItChanges() throws Exception {
+        MockHttpServletResponse first = perform(get("/api/movies/genre/{genre}", movie.getGenre()), 1);
+        assertEquals(200, first.getStatus());
+        assertEquals("public, max-age=60", first.getHeader(HttpHeaders.CACHE_CONTROL));
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse second = perform(get("/api/movies/genre/{genre}", movie.getGenre()), 0);
+        assertEquals(eTag, second.getHeader(HttpHeaders.ETAG));
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+
+        MockHttpServletResponse notModified = perform(get("/api/movies/genre/{genre}", movie.getGenre())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), 0);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+
+        // A theater write leaves movie responses alone
+        theaterService.addTheater(new Theater(null, "Another Theater", "Uptown", null));
+        perform(get("/api/movies/genre/{genre}", movie.getGenre()), 0);
+
+        movie.setTitle("Response Cache Renamed");
+        movieService.updateMovie(movie.getId(), movie);
+        MockHttpServletResponse changed = perform(get("/api/movies/genre/{genre}", movie.getGenre())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), 1);
+        assertEquals(200, changed.getStatus());
+        assertNotEquals(eTag, changed.getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getContentAsString().contains("Response Cache Renamed"));
+    }
+
+    @Test
+    void gzipIsSentToClientsThatAcceptIt() throws Exception {
+        MockHttpServletResponse plain = perform(get("/api/movies/genre/{genre}", movie.getGenre()), 1);
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        MockHttpServletResponse gzipped = perform(get("/api/movies/genre/{genre}", movie.getGenre())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"), 0);
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getContentAsByteArray().length < plain.getContentAsByteArray().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+        }
+        assertNotEquals(plain.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse notModified = perform(get("/api/movies/genre/{genre}", movie.getGenre())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipped.getHeader(HttpHeaders.ETAG)), 0);
+        assertEquals(304, notModified.getStatus());
+    }
+
+    @Test
+    void listingsWithSeatCountsChangeWithBookings() throws Exception {
+        MockHttpServletResponse listing = perform(get("/api/showtimes/movie/{movieId}", movie.getId()), -1);
+        assertEquals("no-cache", listing.getHeader(HttpHeaders.CACHE_CONTROL));
+        perform(get("/api/showtimes/movie/{movieId}", movie.getId()), 0);
+        MockHttpServletResponse single = perform(get("/api/showtimes/{id}", showtime.getId()), 1);
+
+        bookingService.createBooking(user(), showtime, Set.of(seats.get(0), seats.get(1)));
+
+        MockHttpServletResponse booked = perform(get("/api/showtimes/movie/{movieId}", movie.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, listing.getHeader(HttpHeaders.ETAG)), -1);
+        assertEquals(200, booked.getStatus());
+        assertNotEquals(listing.getHeader(HttpHeaders.ETAG), booked.getHeader(HttpHeaders.ETAG));
+
+        // The single showtime carries no seat counts, so it is still served from memory
+        assertEquals(single.getHeader(HttpHeaders.ETAG),
+                perform(get("/api/showtimes/{id}", showtime.getId()), 0).getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void bookingOneShowtimeKeepsListingsOfOthers() throws Exception {
+        Screen screen = screenRepository.save(new Screen(null, "Screen 2", showtime.getScreen().getTheater(), null, null));
+        Seat seat = seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Movie other = movieService.addMovie(new Movie(null, "Response Cache Other", "", 90, "Drama", null));
+        Showtime elsewhere = new Showtime();
+        elsewhere.setMovie(other);
+        elsewhere.setScreen(screen);
+        elsewhere.setStartTime(LocalDateTime.now().plusDays(30));
+        elsewhere.setEndTime(LocalDateTime.now().plusDays(30).plusHours(2));
+        elsewhere.setPrice(BigDecimal.TEN);
+        elsewhere = showtimeService.addShowtime(elsewhere);
+        String day = "/api/showtimes/whats-on?date=" + showtime.getStartTime().toLocalDate();
+
+        MockHttpServletResponse listing = perform(get("/api/showtimes/movie/{movieId}", movie.getId()), -1);
+        MockHttpServletResponse whatsOn = perform(get(day), -1);
+        perform(get("/api/showtimes/movie/{movieId}", movie.getId()), 0);
+        perform(get(day), 0);
+
+        bookingService.createBooking(user(), elsewhere, Set.of(seat));
+        assertEquals(listing.getHeader(HttpHeaders.ETAG),
+                perform(get("/api/showtimes/movie/{movieId}", movie.getId()), 0).getHeader(HttpHeaders.ETAG));
+        assertEquals(whatsOn.getHeader(HttpHeaders.ETAG), perform(get(day), 0).getHeader(HttpHeaders.ETAG));
+
+        bookingService.createBooking(user(), showtime, Set.of(seats.get(5)));
+        assertNotEquals(whatsOn.getHeader(HttpHeaders.ETAG), perform(get(day), -1).getHeader(HttpHeaders.ETAG));
+    }
+
+    private User user() {
+        return userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+    }
+
+    // Performs the request and checks the number of SQL statements it took, unless expected is negative
+    private MockHttpServletResponse perform(RequestBuilder request, long expected) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        if (expected >= 0) {
+            assertEquals(expected, statistics.getPrepareStatementCount());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,200 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.BookingService;
+import com.movie.service.ShowtimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A request sent with an Idempotency-Key is run once: a retry gets the first answer back, waiting for it if the first
+ * attempt is still running, unless that answer says nothing about the request itself, such as a write that timed out.
+ * A key cannot be reused for a different request. Each test books seats of a showtime of its own.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser(username = IdempotencyTest.USERNAME)
+class IdempotencyTest {
+
+    static final String USERNAME = "idempotency-user";
+    private static final AtomicInteger DAYS = new AtomicInteger(1200);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private UserRepository userRepository;
+    @MockitoSpyBean private BookingService bookingService;
+
+    private Long showtimeId;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .email(USERNAME + "@example.com")
+                    .password("secret")
+                    .roles(Set.of("ROLE_USER"))
+                    .build());
+        }
+        Theater theater = theaterRepository.save(new Theater(null, "Idempotency Theater", "Harbourside", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seats = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            seats.add(seatRepository.save(new Seat(null, "A", i, screen, null)));
+        }
+        Movie movie = movieRepository.save(new Movie(null, "Idempotency Movie", "", 90, "Drama", null));
+        LocalDateTime start = LocalDateTime.now().plusDays(DAYS.getAndIncrement());
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(start);
+        showtime.setEndTime(start.plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtimeId = showtimeService.addShowtime(showtime).getId();
+    }
+
+    @Test
+    void retryGetsTheFirstAnswer() throws Exception {
+        long booked = bookingId(book("replay-key", seats.get(0), seats.get(1)).andExpect(status().isCreated()));
+        // The seats are taken by now, so only a replay can answer with the same booking
+        assertEquals(booked, bookingId(book("replay-key", seats.get(1), seats.get(0))
+                .andExpect(status().isCreated())));
+        verify(bookingService, times(1)).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+    }
+
+    @Test
+    void keyReusedForOtherSeatsIsRejected() throws Exception {
+        book("reused-key", seats.get(0)).andExpect(status().isCreated());
+        book("reused-key", seats.get(1)).andExpect(status().isUnprocessableEntity());
+        verify(bookingService, times(1)).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+    }
+
+    @Test
+    void retryWaitsForTheFirstAttempt() throws Exception {
+        // The first attempt is held up until the retry has arrived
+        Answer<?> service = mockingDetails(bookingService).getMockCreationSettings().getDefaultAnswer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue(proceed.await(5, TimeUnit.SECONDS));
+            return service.answer(invocation);
+        }).when(bookingService).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MvcResult> first = executor.submit(() -> book("concurrent-key", seats.get(0)).andReturn());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MvcResult> retry = executor.submit(() -> book("concurrent-key", seats.get(0)).andReturn());
+            Thread.sleep(200);
+            assertFalse(retry.isDone());
+            proceed.countDown();
+
+            MvcResult firstResult = first.get(5, TimeUnit.SECONDS);
+            MvcResult retryResult = retry.get(5, TimeUnit.SECONDS);
+            assertEquals(201, firstResult.getResponse().getStatus());
+            assertEquals(201, retryResult.getResponse().getStatus());
+            assertEquals(bookingId(firstResult), bookingId(retryResult));
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+        verify(bookingService, times(1)).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+    }
+
+    @Test
+    void timedOutWriteIsNotReplayed() throws Exception {
+        // The first attempt times out before its write is picked up; the spy of the service proxy forwards to it
+        // through its default answer afterwards
+        Answer<?> service = mockingDetails(bookingService).getMockCreationSettings().getDefaultAnswer();
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new IllegalStateException("Booking could not be saved in time, please try again");
+            }
+            return service.answer(invocation);
+        }).when(bookingService).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+
+        book("timeout-key", seats.get(0))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        long booked = bookingId(book("timeout-key", seats.get(0)).andExpect(status().isCreated()));
+        assertEquals(booked, bookingId(book("timeout-key", seats.get(0)).andExpect(status().isCreated())));
+        verify(bookingService, times(2)).bookSeats(anyLong(), anyLong(), anySet(), anyBoolean());
+    }
+
+    private ResultActions book(String idempotencyKey, Seat... seats) throws Exception {
+        List<Long> seatIds = new ArrayList<>();
+        for (Seat seat : seats) {
+            seatIds.add(seat.getId());
+        }
+        // The user goes with the request, as it may be sent from a thread of its own
+        return mockMvc.perform(post("/api/bookings/showtime/{id}", showtimeId)
+                .with(user(USERNAME))
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(seatIds)));
+    }
+
+    private long bookingId(ResultActions result) throws Exception {
+        return bookingId(result.andReturn());
+    }
+
+    private long bookingId(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
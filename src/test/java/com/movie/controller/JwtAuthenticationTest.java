@@ -0,0 +1,180 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.security.JwtService;
+import com.movie.security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests carrying a valid bearer token are authenticated, with the token verified once and its claims reused by
+ * later requests; forged and expired tokens authenticate nothing. The token carries the user's id and roles, so
+ * authenticated requests do not read the user, apart from the principal cache's periodic check.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.movie.controller.JwtAuthenticationTest$Recorder"
+})
+@AutoConfigureMockMvc
+class JwtAuthenticationTest {
+
+    private static final String USERNAME = "jwt-user";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JwtService jwtService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PrincipalCache principalCache;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        token = login(USERNAME);
+    }
+
+    @Test
+    void validTokenIsVerifiedOnceAndReused() throws Exception {
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        assertSame(jwtService.verify(token).orElseThrow(), jwtService.verify(token).orElseThrow());
+    }
+
+    @Test
+    void tokenCarriesTheUserIdAndRoles() {
+        Claims claims = jwtService.verify(token).orElseThrow();
+        assertEquals(userRepository.findIdByUsername(USERNAME).orElseThrow(),
+                claims.get(JwtService.USER_ID_CLAIM, Long.class));
+        assertEquals(List.of("ROLE_USER"), claims.get(JwtService.ROLES_CLAIM, List.class));
+    }
+
+    @Test
+    void bookingWithATokenDoesNotReadTheUser() throws Exception {
+        Theater theater = theaterRepository.save(new Theater(null, "Token Theater", "Uptown", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        Seat seat = seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Movie movie = movieRepository.save(new Movie(null, "Token Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(4));
+        showtime.setEndTime(LocalDateTime.now().plusDays(4).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtime = showtimeRepository.save(showtime);
+        // The first request of a user reads it once into the principal cache
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        Recorder.statements.clear();
+        mockMvc.perform(post("/api/bookings/showtime/{id}", showtime.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + seat.getId() + "]"))
+                .andExpect(status().isCreated());
+        List<String> users = Recorder.statements.stream()
+                .filter(sql -> Pattern.compile("\\busers\\b", Pattern.CASE_INSENSITIVE).matcher(sql).find())
+                .toList();
+        assertEquals(List.of(), users);
+    }
+
+    @Test
+    void deletedUserLosesAccessOncePrincipalIsReloaded() throws Exception {
+        String revoked = login("jwt-revoked-user");
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isOk());
+
+        Long userId = userRepository.findIdByUsername("jwt-revoked-user").orElseThrow();
+        userRepository.deleteById(userId);
+        // Stands in for the principal cache's expiry
+        principalCache.evict(userId);
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void forgedAndExpiredTokensAreRejected() throws Exception {
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + forged))
+                .andExpect(status().isForbidden());
+
+        String expired = Jwts.builder()
+                .setSubject(USERNAME)
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        mockMvc.perform(get("/api/bookings/my-bookings").header(HttpHeaders.AUTHORIZATION, "Bearer " + expired))
+                .andExpect(status().isForbidden());
+        assertTrue(jwtService.verify(expired).isEmpty());
+    }
+
+    private String login(String username) throws Exception {
+        if (!userRepository.existsByUsername(username)) {
+            mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\","
+                                    + "\"password\":\"secret\"}"))
+                    .andExpect(status().isOk());
+        }
+        String response = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("token").asText();
+    }
+
+    public static class Recorder implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Movie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Title search ranks titles starting with the query first, then titles containing it, then movies matching only
+ * on genre or description, tolerates a dropped letter, and follows movies as they are renamed and deleted. Each
+ * test searches for words of its own, so movies of other tests never match.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser(roles = {"USER", "ADMIN"})
+class MovieSearchTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void titlesStartingWithTheQueryRankFirst() throws Exception {
+        Movie inDescription = addMovie("Harbour Lights", "A night with the zephyrine fleet");
+        Movie containing = addMovie("Return of Zephyrine", "");
+        Movie starting = addMovie("Zephyrine Dawn", "");
+
+        assertEquals(List.of(starting.getId(), containing.getId(), inDescription.getId()), search("zephyrine"));
+        assertEquals(List.of(starting.getId()), search("zephyrine", 1));
+    }
+
+    @Test
+    void smallTyposStillMatch() throws Exception {
+        Movie movie = addMovie("Marigolden Harvest", "");
+
+        assertEquals(List.of(movie.getId()), search("marigoldn"));
+        assertEquals(List.of(movie.getId()), search("marigolden harvst"));
+        assertEquals(List.of(), search("quarantine"));
+    }
+
+    @Test
+    void renamedAndDeletedMoviesAreFollowed() throws Exception {
+        Movie movie = addMovie("Thistlewick Manor", "");
+        Movie other = addMovie("Thistlewick Returns", "");
+        for (String title : List.of("Bramblecote Manor", "Bramblecote Abbey", "Bramblecote Castle")) {
+            movie.setTitle(title);
+            mockMvc.perform(put("/api/movies/{id}", movie.getId())
+                            .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(movie)))
+                    .andExpect(status().isOk());
+        }
+        assertEquals(List.of(other.getId()), search("thistlewick"));
+        assertEquals(List.of(movie.getId()), search("bramblecote"));
+        assertEquals(List.of(movie.getId()), search("bramblecote castle", 1));
+
+        mockMvc.perform(delete("/api/movies/{id}", movie.getId())).andExpect(status().isNoContent());
+        assertEquals(List.of(), search("bramblecote"));
+        // Takes the deleted movie's place in the index without inheriting its grams
+        Movie added = addMovie("Gooseberry Lane", "");
+        assertEquals(List.of(added.getId()), search("gooseberry"));
+        assertEquals(List.of(), search("bramblecote"));
+        assertEquals(List.of(other.getId()), search("thistlewick"));
+    }
+
+    private Movie addMovie(String title, String description) throws Exception {
+        String body = mockMvc.perform(post("/api/movies").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Movie(null, title, description, 100, "Drama", null))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Movie.class);
+    }
+
+    private List<Long> search(String query) throws Exception {
+        return search(query, 20);
+    }
+
+    private List<Long> search(String query, int limit) throws Exception {
+        // In the URI rather than as parameters, so the catalog response cache keys on them
+        String body = mockMvc.perform(get("/api/movies/search?title={title}&limit={limit}", query, limit))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return List.of(objectMapper.readValue(body, Movie[].class)).stream().map(Movie::getId).toList();
+    }
+}
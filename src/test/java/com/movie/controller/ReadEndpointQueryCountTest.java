@@ -0,0 +1,211 @@
+package com.movie.controller;
+
+import com.movie.dto.CursorPage;
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.BookingService;
+import com.movie.service.ShowtimeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read endpoints must issue the same number of SQL statements however many bookings, seats and showtimes
+ * they return. Each test gets its own theater, movie and showtimes on a day of its own.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class ReadEndpointQueryCountTest {
+
+    private static final String USERNAME = "query-count-user";
+    private static final int SEATS = 20;
+    private static final AtomicInteger DAYS = new AtomicInteger(400);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private BookingService bookingService;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Movie movie;
+    private Showtime booked;
+    private Showtime unbooked;
+    private List<Booking> bookings;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+
+        Theater theater = theaterRepository.save(new Theater(null, "Query Count Theater", "Downtown", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            seats.add(seatRepository.save(new Seat(null, String.valueOf((char) ('A' + i / 10)), i % 10 + 1, screen, null)));
+        }
+        movie = movieRepository.save(new Movie(null, "Query Count", "", 120, "Drama", null));
+
+        LocalDateTime day = LocalDateTime.now().plusDays(DAYS.getAndIncrement()).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        booked = showtimeService.addShowtime(showtime(screen, day));
+        unbooked = showtimeService.addShowtime(showtime(screen, day.plusHours(4)));
+
+        // Several bookings of several seats each, so a query per booking or per seat would show up in the counts
+        bookings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bookings.add(bookingService.createBooking(user, booked, Set.of(seats.get(3 * i), seats.get(3 * i + 1), seats.get(3 * i + 2))));
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bookingsPage() throws Exception {
+        assertStatements(2, get("/api/bookings").param("after", String.valueOf(bookings.get(0).getId() - 1)).param("size", "4"))
+                .andExpect(jsonPath("$.items.length()").value(4))
+                .andExpect(jsonPath("$.items[0].seats.length()").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void bookingById() throws Exception {
+        assertStatements(2, get("/api/bookings/{id}", bookings.get(0).getId()))
+                .andExpect(jsonPath("$.seats.length()").value(3))
+                .andExpect(jsonPath("$.user").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    void ownBookingById() throws Exception {
+        // One more statement for the ownership check
+        assertStatements(3, get("/api/bookings/{id}", bookings.get(1).getId()))
+                .andExpect(jsonPath("$.showtimeId").value(booked.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME)
+    void myBookings() throws Exception {
+        assertStatements(2, get("/api/bookings/my-bookings"))
+                .andExpect(jsonPath("$[0].seats.length()").value(3));
+    }
+
+    @Test
+    @WithMockUser
+    void showtimesPage() throws Exception {
+        // One statement for the page and two counting the seats of the showtime not yet loaded into the seat inventory
+        String after = booked.getStartTime().minusMinutes(1) + ",0";
+        assertStatements(3, get("/api/showtimes").param("after", after).param("size", "2"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].theaterName").value("Query Count Theater"))
+                .andExpect(jsonPath("$.items[0].occupancy.sold").value(12))
+                .andExpect(jsonPath("$.items[1].occupancy.free").value(SEATS));
+    }
+
+    @Test
+    @WithMockUser
+    void showtimeById() throws Exception {
+        assertStatements(1, get("/api/showtimes/{id}", unbooked.getId()))
+                .andExpect(jsonPath("$.movieTitle").value("Query Count"))
+                .andExpect(jsonPath("$.bookings").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void showtimesByMovie() throws Exception {
+        // The movie, its showtimes, and the seat counts of the showtime not yet loaded
+        assertStatements(4, get("/api/showtimes/movie/{movieId}", movie.getId()))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void occupancy() throws Exception {
+        // Counting the seats of the showtime not yet loaded once, however often it is asked for
+        assertStatements(2, get("/api/showtimes/occupancy?ids={unbooked},{booked},{unbooked}",
+                        unbooked.getId(), booked.getId(), unbooked.getId()))
+                .andExpect(jsonPath("$.length()").value(2));
+
+        StringBuilder ids = new StringBuilder();
+        for (long id = 1; id <= CursorPage.MAX_SIZE + 1; id++) {
+            ids.append(id == 1 ? "" : ",").append(id);
+        }
+        mockMvc.perform(get("/api/showtimes/occupancy").param("ids", ids.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void showtimesByDateRange() throws Exception {
+        // The showtimes come from the calendar; only the seat counts of the showtime not yet loaded are queried
+        assertStatements(2, get("/api/showtimes/date-range")
+                .param("startDate", booked.getStartTime().minusMinutes(1).toString())
+                .param("endDate", unbooked.getStartTime().plusMinutes(1).toString()))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void availableSeats() throws Exception {
+        assertStatements(1, get("/api/showtimes/{id}/seats", booked.getId()))
+                .andExpect(jsonPath("$.length()").value(SEATS - 12))
+                .andExpect(jsonPath("$[0].screen").doesNotExist());
+    }
+
+    private ResultActions assertStatements(long expected, RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ResultActions result = mockMvc.perform(request).andExpect(status().isOk());
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    private Showtime showtime(Screen screen, LocalDateTime start) {
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(start);
+        showtime.setEndTime(start.plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        return showtime;
+    }
+}
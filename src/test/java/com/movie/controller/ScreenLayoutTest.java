@@ -0,0 +1,196 @@
+package com.movie.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Screens created from a layout template get all of their seats in one batched insert, numbered around the aisles
+ * and with their categories in the seat map; their seats can be regenerated until a booking references them.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.movie.controller.ScreenLayoutTest$Recorder"
+})
+@AutoConfigureMockMvc
+@WithMockUser(username = ScreenLayoutTest.USERNAME, roles = {"USER", "ADMIN"})
+class ScreenLayoutTest {
+
+    static final String USERNAME = "screen-layout-admin";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    private Theater theater;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            userRepository.save(User.builder()
+                    .username(USERNAME)
+                    .email(USERNAME + "@example.com")
+                    .password("secret")
+                    .roles(Set.of("ROLE_USER", "ROLE_ADMIN"))
+                    .build());
+        }
+        theater = theaterRepository.save(new Theater(null, "Layout Theater", "Riverside", null));
+    }
+
+    @Test
+    void screenIsBuiltFromTheTemplate() throws Exception {
+        JsonNode screen = createScreen("""
+                {"rows":3,"seatsPerRow":8,"aisles":[2,6],"categories":{"C":"PREMIUM","A1":"ACCESSIBLE"}}""");
+        assertEquals(24, screen.get("capacity").asInt());
+        assertEquals(List.of(1, 2, 4, 5, 6, 7, 9, 10),
+                objectMapper.convertValue(screen.at("/rows/0/numbers"), List.class));
+
+        Long showtimeId = showtime(screen.get("id").asLong()).getId();
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtimeId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows.length()").value(3))
+                // Position 0 is A1; positions 16 to 23 are row C
+                .andExpect(jsonPath("$.categories.ACCESSIBLE").value("AQ=="))
+                .andExpect(jsonPath("$.categories.PREMIUM").value("AAD/"));
+        mockMvc.perform(get("/api/showtimes/{id}/seats", showtimeId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(24))
+                .andExpect(jsonPath("$[2].number").value(4));
+    }
+
+    @Test
+    void seatsAreWrittenInOneBatchWhateverTheirNumber() throws Exception {
+        List<String> small = recordCreate("""
+                {"rows":2,"seatsPerRow":5}""");
+        List<String> large = recordCreate("""
+                {"rows":20,"seatsPerRow":30,"aisles":[5,25]}""");
+
+        assertEquals(small, large);
+        assertEquals(1, large.stream().filter(sql -> sql.startsWith("insert into seats ")).count(),
+                String.join("\n", large));
+    }
+
+    @Test
+    void seatsAreRegeneratedUntilBooked() throws Exception {
+        JsonNode screen = createScreen("""
+                {"rows":2,"seatsPerRow":4}""");
+        long screenId = screen.get("id").asLong();
+        Long showtimeId = showtime(screenId).getId();
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtimeId)).andExpect(status().isOk());
+
+        String regenerated = mockMvc.perform(put("/api/screens/{id}/layout", screenId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rows\":3,\"seatsPerRow\":5,\"aisles\":[1]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.capacity").value(15))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtimeId))
+                .andExpect(jsonPath("$.rows.length()").value(3))
+                .andExpect(jsonPath("$.rows[0].numbers[1]").value(3));
+
+        long seatId = objectMapper.readTree(regenerated).at("/rows/0/seatIds/0").asLong();
+        mockMvc.perform(post("/api/bookings/showtime/{id}", showtimeId)
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + seatId + "]"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/api/screens/{id}/layout", screenId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rows\":1,\"seatsPerRow\":5}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("Screen has bookings")));
+        mockMvc.perform(get("/api/screens/{id}", screenId))
+                .andExpect(jsonPath("$.capacity").value(15));
+    }
+
+    @Test
+    void invalidTemplatesAreRejected() throws Exception {
+        mockMvc.perform(post("/api/screens").contentType(MediaType.APPLICATION_JSON)
+                        .content(request("{\"rows\":2,\"seatsPerRow\":4,\"aisles\":[4]}")))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid aisle 4"));
+        mockMvc.perform(post("/api/screens").contentType(MediaType.APPLICATION_JSON)
+                        .content(request("{\"rows\":2,\"seatsPerRow\":4,\"categories\":{\"C\":\"PREMIUM\"}}")))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown row or seat C"));
+    }
+
+    private JsonNode createScreen(String layout) throws Exception {
+        String body = mockMvc.perform(post("/api/screens").contentType(MediaType.APPLICATION_JSON)
+                        .content(request(layout)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<String> recordCreate(String layout) throws Exception {
+        Recorder.statements.clear();
+        createScreen(layout);
+        return Recorder.statements.stream()
+                .map(sql -> sql.toLowerCase().replaceAll("\\s+", " ").trim())
+                .filter(sql -> !sql.contains("next value for"))
+                .toList();
+    }
+
+    private String request(String layout) {
+        return "{\"theaterId\":" + theater.getId() + ",\"name\":\"Screen\",\"layout\":" + layout + "}";
+    }
+
+    private Showtime showtime(Long screenId) {
+        Movie movie = movieRepository.save(new Movie(null, "Layout Movie", "", 100, "Drama", null));
+        Screen screen = screenRepository.findById(screenId).orElseThrow();
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(3));
+        showtime.setEndTime(LocalDateTime.now().plusDays(3).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        return showtimeRepository.save(showtime);
+    }
+
+    public static class Recorder implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.movie.controller;
+
+import com.movie.inventory.SeatInventory;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.service.BookingService;
+import com.movie.stream.SeatEventPublisher;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * A subscriber to a showtime's seat events gets its snapshot and then every change made after it, including one
+ * made while the snapshot was being taken; the showtime's stream goes away once its last subscriber has left.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser
+class SeatEventStreamTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private SeatEventPublisher seatEventPublisher;
+    @Autowired private SeatInventory seatInventory;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @MockitoSpyBean private BookingService bookingService;
+
+    @Test
+    void changeMadeWhileTheSnapshotIsTakenFollowsIt() throws Exception {
+        Theater theater = theaterRepository.save(new Theater(null, "Stream Theater", "Canal Street", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Seat sold = seatRepository.save(new Seat(null, "A", 2, screen, null));
+        Movie movie = movieRepository.save(new Movie(null, "Stream Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(9));
+        showtime.setEndTime(LocalDateTime.now().plusDays(9).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        Showtime saved = showtimeRepository.save(showtime);
+
+        // The seat is sold just after the stream has read the snapshot for its first subscriber, before that
+        // subscriber is added; the spy of the service proxy forwards to it through its default answer
+        Answer<?> service = mockingDetails(bookingService).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean sell = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            Object seatMap = service.answer(invocation);
+            if (Thread.currentThread().getName().equals("seat-events") && sell.getAndSet(false)) {
+                seatInventory.get(saved).tryReserve(List.of(sold.getId()));
+            }
+            return seatMap;
+        }).when(bookingService).getSeatMap(anyLong());
+
+        MvcResult result = mockMvc.perform(get("/api/showtimes/{id}/seat-events", saved.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String events = awaitEvent(result, "event:delta");
+        int snapshot = events.indexOf("event:snapshot");
+        int delta = events.indexOf("event:delta");
+        assertTrue(snapshot >= 0 && snapshot < delta, events);
+        assertTrue(events.substring(delta).contains(String.valueOf(sold.getId())), events);
+
+        result.getRequest().getAsyncContext().complete();
+        assertFalse(streams().containsKey(saved.getId()));
+    }
+
+    private static String awaitEvent(MvcResult result, String event) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String events = result.getResponse().getContentAsString();
+        while (!events.contains(event) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            events = result.getResponse().getContentAsString();
+        }
+        return events;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> streams() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(seatEventPublisher, "streams");
+    }
+}
@@ -0,0 +1,123 @@
+package com.movie.controller;
+
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.service.ShowtimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Showtimes served from the in-memory calendar follow the catalog: inverted ranges are empty rather than an error,
+ * the showtimes of a deleted theater are gone from every read, and a deleted showtime can no longer be updated even
+ * once its seats were loaded. Each test gets a day of its own.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@WithMockUser(roles = {"USER", "ADMIN"})
+class ShowtimeCalendarTest {
+
+    private static final AtomicInteger DAYS = new AtomicInteger(700);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private MovieRepository movieRepository;
+
+    private Theater theater;
+    private Screen screen;
+    private Movie movie;
+    private Showtime showtime;
+
+    @BeforeEach
+    void setUp() {
+        theater = theaterRepository.save(new Theater(null, "Calendar Theater", "Harbour", null));
+        screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        movie = movieRepository.save(new Movie(null, "Calendar Movie", "", 100, "Drama", null));
+        LocalDateTime day = LocalDateTime.now().plusDays(DAYS.getAndIncrement()).withHour(18).withMinute(0)
+                .withSecond(0).withNano(0);
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(day);
+        showtime.setEndTime(day.plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        this.showtime = showtimeService.addShowtime(showtime);
+    }
+
+    @Test
+    void rangeEndingBeforeItStartsIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/showtimes/date-range")
+                        .param("startDate", showtime.getStartTime().plusDays(1).toString())
+                        .param("endDate", showtime.getStartTime().minusMinutes(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void showtimesOfADeletedTheaterAreNoLongerServed() throws Exception {
+        mockMvc.perform(get("/api/showtimes/date-range")
+                        .param("startDate", showtime.getStartTime().minusMinutes(1).toString())
+                        .param("endDate", showtime.getStartTime().plusMinutes(1).toString()))
+                .andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(delete("/api/theaters/{id}", theater.getId())).andExpect(status().is2xxSuccessful());
+
+        mockMvc.perform(get("/api/showtimes/date-range")
+                        .param("startDate", showtime.getStartTime().minusMinutes(1).toString())
+                        .param("endDate", showtime.getStartTime().plusMinutes(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/showtimes/movie/{movieId}", movie.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void invalidUpdateIsRejectedAndDeletedShowtimeIsNotFound() throws Exception {
+        mockMvc.perform(put("/api/showtimes/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(showtime.getEndTime(), showtime.getStartTime())))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/showtimes/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(showtime.getStartTime(), showtime.getEndTime().plusMinutes(30))))
+                .andExpect(status().isOk());
+
+        // Loads the showtime's seats, which go with it once it is deleted
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtime.getId())).andExpect(status().isOk());
+        mockMvc.perform(delete("/api/showtimes/{id}", showtime.getId())).andExpect(status().isNoContent());
+
+        mockMvc.perform(put("/api/showtimes/{id}", showtime.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(showtime.getStartTime(), showtime.getEndTime())))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/showtimes/{id}/seat-map", showtime.getId())).andExpect(status().isNotFound());
+    }
+
+    private String body(LocalDateTime start, LocalDateTime end) {
+        return "{\"movie\":{\"id\":" + movie.getId() + "},\"screen\":{\"id\":" + screen.getId()
+                + "},\"startTime\":\"" + start + "\",\"endTime\":\"" + end + "\",\"price\":10}";
+    }
+}
@@ -0,0 +1,117 @@
+package com.movie.service;
+
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BookingServiceConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final int SEATS = 60;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void concurrentBookingsNeverShareASeat() throws Exception {
+        Theater theater = new Theater();
+        theater.setName("Stress Theater");
+        theaterRepository.save(theater);
+
+        Screen screen = new Screen();
+        screen.setName("Screen 1");
+        screen.setTheater(theater);
+        screenRepository.save(screen);
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            Seat seat = new Seat();
+            seat.setRow(String.valueOf((char) ('A' + i / 10)));
+            seat.setNumber(i % 10 + 1);
+            seat.setScreen(screen);
+            seats.add(seatRepository.save(seat));
+        }
+
+        Movie movie = new Movie();
+        movie.setTitle("Opening Night");
+        movieRepository.save(movie);
+
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(1));
+        showtime.setEndTime(LocalDateTime.now().plusDays(1).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        showtimeRepository.save(showtime);
+
+        User user = userRepository.save(User.builder()
+                .username("stress-user")
+                .email("stress@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger bookedSeats = new AtomicInteger();
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                // Every request asks for two adjacent seats, so requests overlap heavily
+                int first = ThreadLocalRandom.current().nextInt(SEATS - 1);
+                Set<Seat> requested = new HashSet<>(seats.subList(first, first + 2));
+                start.await();
+                try {
+                    bookingService.createBooking(user, showtime, requested);
+                    bookedSeats.addAndGet(requested.size());
+                } catch (IllegalArgumentException e) {
+                    // Seat already taken
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        List<Long> confirmedSeatIds = bookingRepository.findConfirmedSeatIdsByShowtimeId(showtime.getId());
+        assertEquals(confirmedSeatIds.size(), new HashSet<>(confirmedSeatIds).size(), "a seat was sold twice");
+        assertEquals(bookedSeats.get(), confirmedSeatIds.size());
+        assertTrue(bookedSeats.get() > 0);
+    }
+}
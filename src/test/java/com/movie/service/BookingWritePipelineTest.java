@@ -0,0 +1,172 @@
+package com.movie.service;
+
+import com.movie.dto.PipelineStats;
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import com.movie.service.impl.BookingWritePipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bookings queued together are written in one transaction; a booking that fails its batch fails alone, anything a
+ * batch throws fails only that batch, and writes left when the pipeline stops are failed rather than left waiting.
+ * Each test gets a pipeline of its own, with a window wide enough that writes submitted together share a batch.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "booking.write.max-batch=4",
+        "booking.write.max-delay=500"
+})
+class BookingWritePipelineTest {
+
+    private static final String USERNAME = "pipeline-user";
+
+    @Autowired private AutowireCapableBeanFactory beanFactory;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    private BookingWritePipeline pipeline;
+    private User user;
+    private Showtime showtime;
+    private List<Seat> seats;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = beanFactory.createBean(BookingWritePipeline.class);
+        user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+        Theater theater = theaterRepository.save(new Theater(null, "Pipeline Theater", "Docklands", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seats = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            seats.add(seatRepository.save(new Seat(null, "A", i, screen, null)));
+        }
+        Movie movie = movieRepository.save(new Movie(null, "Pipeline Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(5));
+        showtime.setEndTime(LocalDateTime.now().plusDays(5).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        this.showtime = showtimeRepository.save(showtime);
+    }
+
+    @AfterEach
+    void tearDown() {
+        beanFactory.destroyBean(pipeline);
+    }
+
+    @Test
+    void queuedBookingsShareOneTransaction() throws Exception {
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pipeline.submit(booking(Set.of(seats.get(i)))));
+        }
+        for (CompletableFuture<Booking> result : results) {
+            assertNotNull(bookingRepository.findById(result.get(5, TimeUnit.SECONDS).getId()).orElse(null));
+        }
+
+        PipelineStats stats = pipeline.getStats();
+        assertEquals(1, stats.getFlushes());
+        assertEquals(4, stats.getBookingsWritten());
+        assertEquals(4, stats.getMaxBatchSize());
+    }
+
+    @Test
+    void bookingTakingATakenSeatFailsAlone() throws Exception {
+        CompletableFuture<Booking> first = pipeline.submit(booking(Set.of(seats.get(0))));
+        CompletableFuture<Booking> second = pipeline.submit(booking(Set.of(seats.get(1))));
+        CompletableFuture<Booking> conflicting = pipeline.submit(booking(Set.of(seats.get(0))));
+        CompletableFuture<Booking> third = pipeline.submit(booking(Set.of(seats.get(2))));
+
+        for (CompletableFuture<Booking> result : List.of(first, second, third)) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS).getId());
+        }
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> conflicting.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof RuntimeException, String.valueOf(failure.getCause()));
+
+        PipelineStats stats = pipeline.getStats();
+        assertEquals(1, stats.getFailedFlushes());
+        assertEquals(3, stats.getBookingsWritten());
+    }
+
+    @Test
+    void errorFailsItsBatchButNotTheWriter() throws Exception {
+        Set<Seat> broken = new HashSet<>(Set.of(seats.get(3))) {
+            @Override
+            public Iterator<Seat> iterator() {
+                throw new AssertionError("broken seats");
+            }
+        };
+        CompletableFuture<Booking> failed = pipeline.submit(booking(broken));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, failure.getCause());
+
+        Booking written = pipeline.submit(booking(Set.of(seats.get(4)))).get(5, TimeUnit.SECONDS);
+        assertNotNull(bookingRepository.findById(written.getId()).orElse(null));
+    }
+
+    @Test
+    void stoppingFinishesTheBatchInHandAndFailsLaterWrites() throws Exception {
+        CompletableFuture<Booking> inHand = pipeline.submit(booking(Set.of(seats.get(5))));
+        beanFactory.destroyBean(pipeline);
+
+        assertTrue(inHand.isDone());
+        assertNotNull(inHand.get().getId());
+        CompletableFuture<Booking> late = pipeline.submit(booking(Set.of(seats.get(6))));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    private Booking booking(Set<Seat> seats) {
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setShowtime(showtime);
+        booking.setSeats(seats);
+        booking.setBookingTime(LocalDateTime.now());
+        booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        return booking;
+    }
+}
@@ -0,0 +1,102 @@
+package com.movie.service;
+
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A write the writer has picked up but not committed within the request's timeout is still written afterwards;
+ * a hold written that late is still expired and gives its seats back. The writer waits long enough for a batch to
+ * fill that every write outlasts the timeout.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "booking.write.max-delay=1000",
+        "booking.write.timeout=200",
+        "booking.hold.ttl=1500"
+})
+class BookingWriteTimeoutTest {
+
+    private static final String USERNAME = "write-timeout-user";
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+
+    private User user;
+    private Showtime showtime;
+    private Seat seat;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+        Theater theater = theaterRepository.save(new Theater(null, "Timeout Theater", "Riverside", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seat = seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Movie movie = movieRepository.save(new Movie(null, "Timeout Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(7));
+        showtime.setEndTime(LocalDateTime.now().plusDays(7).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        this.showtime = showtimeRepository.save(showtime);
+    }
+
+    @Test
+    void holdWrittenAfterItsTimeoutStillExpires() throws Exception {
+        IllegalStateException timeout = assertThrows(IllegalStateException.class,
+                () -> bookingService.holdSeats(user, showtime, Set.of(seat)));
+        assertTrue(timeout.getMessage().contains("still being saved"), timeout.getMessage());
+
+        List<Booking> bookings = awaitBookings(Booking.BookingStatus.CANCELLED);
+        assertEquals(1, bookings.size());
+        assertTrue(bookingService.isSeatAvailableForShowtime(seat, showtime));
+    }
+
+    // Waits for every booking of the showtime to reach the given status
+    private List<Booking> awaitBookings(Booking.BookingStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<Booking> bookings = bookingRepository.findByShowtime(showtime);
+        while ((bookings.isEmpty() || bookings.stream().anyMatch(booking -> booking.getStatus() != status))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            bookings = bookingRepository.findByShowtime(showtime);
+        }
+        return bookings;
+    }
+}
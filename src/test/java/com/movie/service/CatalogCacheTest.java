@@ -0,0 +1,64 @@
+package com.movie.service;
+
+import com.movie.model.Movie;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.TheaterRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cached movies and theaters follow their writes: an update is read back from the cache as written, and neither an
+ * updated nor a deleted one is still listed as it was before.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class CatalogCacheTest {
+
+    @Autowired private MovieService movieService;
+    @Autowired private TheaterService theaterService;
+    @MockitoSpyBean private MovieRepository movieRepository;
+    @MockitoSpyBean private TheaterRepository theaterRepository;
+
+    @Test
+    void movieReadsFollowItsUpdateAndDelete() {
+        Long id = movieService.addMovie(new Movie(null, "Cached Movie", "", 90, "Drama", null)).getId();
+        assertEquals("Cached Movie", movieService.getMovieById(id).orElseThrow().getTitle());
+        assertEquals("Cached Movie", movieService.getMovies(id - 1, 1).getItems().get(0).getTitle());
+
+        movieService.updateMovie(id, new Movie(null, "Recut Movie", "", 95, "Drama", null));
+        clearInvocations(movieRepository);
+        assertEquals("Recut Movie", movieService.getMovieById(id).orElseThrow().getTitle());
+        verify(movieRepository, never()).findById(id);
+        assertEquals("Recut Movie", movieService.getMovies(id - 1, 1).getItems().get(0).getTitle());
+
+        movieService.deleteMovie(id);
+        assertTrue(movieService.getMovieById(id).isEmpty());
+        assertTrue(movieService.getMovies(id - 1, 1).getItems().stream().noneMatch(movie -> movie.getId().equals(id)));
+    }
+
+    @Test
+    void theaterReadsFollowItsUpdateAndDelete() {
+        Long id = theaterService.addTheater(new Theater(null, "Cached Theater", "Old Town", null)).getId();
+        assertEquals("Cached Theater", theaterService.getTheaterById(id).orElseThrow().getName());
+        assertEquals("Cached Theater", theaterService.getTheaters(id - 1, 1).getItems().get(0).getName());
+
+        theaterService.updateTheater(id, new Theater(null, "Renamed Theater", "Old Town", null));
+        clearInvocations(theaterRepository);
+        assertEquals("Renamed Theater", theaterService.getTheaterById(id).orElseThrow().getName());
+        verify(theaterRepository, never()).findById(id);
+        assertEquals("Renamed Theater", theaterService.getTheaters(id - 1, 1).getItems().get(0).getName());
+
+        theaterService.deleteTheater(id);
+        assertTrue(theaterService.getTheaterById(id).isEmpty());
+        assertTrue(theaterService.getTheaters(id - 1, 1).getItems().stream()
+                .noneMatch(theater -> theater.getId().equals(id)));
+    }
+}
@@ -0,0 +1,159 @@
+package com.movie.service;
+
+import com.movie.model.Booking;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Seat;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.model.User;
+import com.movie.repository.BookingRepository;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.SeatRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.ShowtimeSeatRepository;
+import com.movie.repository.TheaterRepository;
+import com.movie.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * A hold that is neither confirmed nor cancelled in time is expired and gives its seats back, exactly once: not
+ * after it was confirmed, not again after it was cancelled, and still after its expiry failed once. A hold whose
+ * time is up cannot be confirmed, even before the expiry has got to it.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "booking.hold.ttl=1000"
+})
+class SeatHoldExpiryTest {
+
+    private static final String USERNAME = "hold-expiry-user";
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private MovieRepository movieRepository;
+    @Autowired private ShowtimeRepository showtimeRepository;
+    @Autowired private UserRepository userRepository;
+    @MockitoSpyBean private ShowtimeSeatRepository showtimeSeatRepository;
+
+    private User user;
+    private Showtime showtime;
+    private Seat seat;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername(USERNAME).orElseGet(() -> userRepository.save(User.builder()
+                .username(USERNAME)
+                .email(USERNAME + "@example.com")
+                .password("secret")
+                .roles(Set.of("ROLE_USER"))
+                .build()));
+        Theater theater = theaterRepository.save(new Theater(null, "Hold Theater", "Market Square", null));
+        Screen screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        seat = seatRepository.save(new Seat(null, "A", 1, screen, null));
+        Movie movie = movieRepository.save(new Movie(null, "Hold Movie", "", 90, "Drama", null));
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(LocalDateTime.now().plusDays(4));
+        showtime.setEndTime(LocalDateTime.now().plusDays(4).plusHours(2));
+        showtime.setPrice(BigDecimal.TEN);
+        this.showtime = showtimeRepository.save(showtime);
+    }
+
+    @Test
+    void unconfirmedHoldExpires() throws Exception {
+        Booking hold = bookingService.holdSeats(user, showtime, Set.of(seat));
+        assertFalse(bookingService.isSeatAvailableForShowtime(seat, showtime));
+
+        assertEquals(Booking.BookingStatus.CANCELLED, awaitStatus(hold, Booking.BookingStatus.CANCELLED));
+        assertTrue(bookingService.isSeatAvailableForShowtime(seat, showtime));
+    }
+
+    @Test
+    void confirmedHoldKeepsItsSeats() throws Exception {
+        Booking hold = bookingService.holdSeats(user, showtime, Set.of(seat));
+        bookingService.confirmBooking(hold.getId());
+
+        Thread.sleep(2000);
+        assertEquals(Booking.BookingStatus.CONFIRMED, status(hold));
+        assertFalse(bookingService.isSeatAvailableForShowtime(seat, showtime));
+    }
+
+    @Test
+    void cancelledHoldIsNotReleasedAgainByItsExpiry() throws Exception {
+        Booking hold = bookingService.holdSeats(user, showtime, Set.of(seat));
+        bookingService.cancelBooking(hold.getId());
+        Booking booking = bookingService.createBooking(user, showtime, Set.of(seat));
+
+        Thread.sleep(2000);
+        assertEquals(Booking.BookingStatus.CONFIRMED, status(booking));
+        assertFalse(bookingService.isSeatAvailableForShowtime(seat, showtime));
+    }
+
+    @Test
+    void failedExpiryIsRetriedAndAnExpiredHoldCannotBeConfirmed() throws Exception {
+        // The first expiry fails as if the database were briefly unavailable; the spy of the repository proxy
+        // forwards to it through its default answer afterwards
+        Answer<?> repository = mockingDetails(showtimeSeatRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("seat-hold-expiry") && failed.compareAndSet(false, true)) {
+                throw new DataAccessResourceFailureException("Connection refused");
+            }
+            return repository.answer(invocation);
+        }).when(showtimeSeatRepository).deleteByBookingId(anyLong());
+
+        Booking hold = bookingService.holdSeats(user, showtime, Set.of(seat));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!failed.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(failed.get());
+
+        // Its time is up, so it cannot be confirmed while the expiry waits to try again
+        IllegalArgumentException expired = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.confirmBooking(hold.getId()));
+        assertTrue(expired.getMessage().contains("expired"), expired.getMessage());
+        assertEquals(Booking.BookingStatus.CANCELLED, awaitStatus(hold, Booking.BookingStatus.CANCELLED));
+        assertTrue(bookingService.isSeatAvailableForShowtime(seat, showtime));
+    }
+
+    private Booking.BookingStatus status(Booking booking) {
+        return bookingRepository.findById(booking.getId()).orElseThrow().getStatus();
+    }
+
+    private Booking.BookingStatus awaitStatus(Booking booking, Booking.BookingStatus expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Booking.BookingStatus status = status(booking);
+        while (status != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = status(booking);
+        }
+        return status;
+    }
+}
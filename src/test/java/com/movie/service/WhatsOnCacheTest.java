@@ -0,0 +1,118 @@
+package com.movie.service;
+
+import com.movie.dto.WhatsOn;
+import com.movie.model.Movie;
+import com.movie.model.Screen;
+import com.movie.model.Showtime;
+import com.movie.model.Theater;
+import com.movie.repository.MovieRepository;
+import com.movie.repository.ScreenRepository;
+import com.movie.repository.ShowtimeRepository;
+import com.movie.repository.TheaterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A cached what's-on day follows the catalog: showtimes added, moved, repriced or deleted are patched into the day
+ * without building it again, and a movie change has the day built again with the new details. Each test lists a
+ * theater location of its own on a day of its own.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class WhatsOnCacheTest {
+
+    private static final AtomicInteger DAYS = new AtomicInteger(3);
+
+    @Autowired private ShowtimeService showtimeService;
+    @Autowired private MovieService movieService;
+    @Autowired private TheaterRepository theaterRepository;
+    @Autowired private ScreenRepository screenRepository;
+    @Autowired private MovieRepository movieRepository;
+    @MockitoSpyBean private ShowtimeRepository showtimeRepository;
+
+    private String location;
+    private LocalDate day;
+    private Screen screen;
+    private Movie movie;
+
+    @BeforeEach
+    void setUp() {
+        int days = DAYS.getAndAdd(2);
+        location = "What's On Row " + days;
+        day = LocalDate.now().plusDays(days);
+        Theater theater = theaterRepository.save(new Theater(null, "What's On Theater", location, null));
+        screen = screenRepository.save(new Screen(null, "Screen 1", theater, null, null));
+        movie = movieRepository.save(new Movie(null, "What's On Movie", "", 90, "Drama", null));
+    }
+
+    @Test
+    void showtimeChangesArePatchedIntoTheDay() {
+        Showtime evening = showtimeService.addShowtime(showtime(day.atTime(18, 0), BigDecimal.TEN));
+        assertEquals(List.of(evening.getId()), showtimeIds(day));
+
+        Showtime matinee = showtimeService.addShowtime(showtime(day.atTime(14, 0), BigDecimal.TEN));
+        assertEquals(List.of(matinee.getId(), evening.getId()), showtimeIds(day));
+
+        showtimeService.updateShowtime(evening.getId(), showtime(day.atTime(18, 0), BigDecimal.valueOf(12)));
+        assertEquals(0, BigDecimal.valueOf(12).compareTo(listings(day).get(1).getPrice()));
+
+        assertEquals(List.of(), showtimeIds(day.plusDays(1)));
+        showtimeService.updateShowtime(matinee.getId(), showtime(day.plusDays(1).atTime(14, 0), BigDecimal.TEN));
+        assertEquals(List.of(evening.getId()), showtimeIds(day));
+        assertEquals(List.of(matinee.getId()), showtimeIds(day.plusDays(1)));
+
+        showtimeService.deleteShowtime(evening.getId());
+        assertEquals(List.of(), showtimeIds(day));
+        verify(showtimeRepository, times(1))
+                .findWithDetailsStartingInRange(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    void movieChangeRebuildsTheDay() {
+        showtimeService.addShowtime(showtime(day.atTime(18, 0), BigDecimal.TEN));
+        assertEquals("What's On Movie", showtimeService.getWhatsOn(day, location).getMovies().get(0).getTitle());
+
+        movieService.updateMovie(movie.getId(), new Movie(null, "What's On Director's Cut", "", 120, "Drama", null));
+        WhatsOn.MovieListing listing = showtimeService.getWhatsOn(day, location).getMovies().get(0);
+        assertEquals("What's On Director's Cut", listing.getTitle());
+        assertEquals(120, listing.getDuration());
+        verify(showtimeRepository, times(2))
+                .findWithDetailsStartingInRange(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    private Showtime showtime(LocalDateTime start, BigDecimal price) {
+        Showtime showtime = new Showtime();
+        showtime.setMovie(movie);
+        showtime.setScreen(screen);
+        showtime.setStartTime(start);
+        showtime.setEndTime(start.plusHours(2));
+        showtime.setPrice(price);
+        return showtime;
+    }
+
+    private List<WhatsOn.ShowtimeListing> listings(LocalDate date) {
+        List<WhatsOn.MovieListing> movies = showtimeService.getWhatsOn(date, location).getMovies();
+        assertTrue(movies.size() <= 1, movies.toString());
+        return movies.stream()
+                .flatMap(movie -> movie.getTheaters().stream())
+                .flatMap(theater -> theater.getShowtimes().stream())
+                .toList();
+    }
+
+    private List<Long> showtimeIds(LocalDate date) {
+        return listings(date).stream().map(WhatsOn.ShowtimeListing::getShowtimeId).toList();
+    }
+}